@@ -25,9 +25,13 @@ public class GameObjectManager {
      * @param dt The delta time since the last update.
      */
     public void update(float dt) {
+        JesterFlightEvents.ObjectsUpdate event = new JesterFlightEvents.ObjectsUpdate();
+        event.begin();
         for (GameObject obj : objects) {
             obj.update(dt);
         }
+        event.objects = objects.size();
+        event.commit();
     }
 
     /**
@@ -35,9 +39,13 @@ public class GameObjectManager {
      */
     public void render(JesterGraphics g, JesterCamera camera) {
         //JesterGraphics.applyFilter(g.getGraphics()); // Apply once before drawing everything
+        JesterFlightEvents.ObjectsRender event = new JesterFlightEvents.ObjectsRender();
+        event.begin();
         for (GameObject obj : objects) {
             obj.render(g, camera); // Pass the camera to each object's render method
         }
+        event.objects = objects.size();
+        event.commit();
     }
 
     /**
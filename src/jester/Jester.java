@@ -4,9 +4,11 @@ public class Jester {
     public static final JesterGraphics graphics = new JesterGraphics();
     public static final JesterWindow window = new JesterWindow();
     public static final JesterInput input = new JesterInput();
+    /** Frame timer, stepped once per frame by the game loop (don't step it yourself) */
     public static final JesterTimer timer = new JesterTimer();
     public static final JesterSystem system = new JesterSystem();
     public static final JesterMath math = new JesterMath();
+    public static final JesterProfiler profiler = new JesterProfiler();
     // Future: public static final JesterSomething something = new JesterSomething();
 
 //    // Constants for commonly used vectors
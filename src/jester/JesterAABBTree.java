@@ -0,0 +1,426 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * A dynamic bounding-volume tree of axis-aligned boxes.
+ * Leaves store a "fat" box that is a little larger than the real one, so a collider
+ * that moves a small amount does not have to be re-inserted. The tree is kept
+ * balanced with rotations, which keeps queries close to O(log n).
+ *
+ * Nodes live in parallel arrays and are recycled through a free list, so the tree
+ * does not allocate once it has reached its working size.
+ */
+class JesterAABBTree {
+    static final int NULL = -1;
+
+    /** Receives the leaves found by a query */
+    interface QueryCallback {
+        /**
+         * Called for each leaf whose fat box overlaps the query box
+         * @param proxy The proxy id of the leaf
+         * @param userData The value stored with the leaf
+         * @return false to stop the query early
+         */
+        boolean reportProxy(int proxy, int userData);
+    }
+
+    /** Receives the leaves hit by a ray cast */
+    interface RaycastCallback {
+        /**
+         * Called for each leaf whose fat box the ray passes through
+         * @param proxy The proxy id of the leaf
+         * @param userData The value stored with the leaf
+         * @param maxFraction How far along the ray (0 to 1) the search currently goes
+         * @return The new search distance: a smaller value clips the ray, 0 stops the cast
+         */
+        float reportRay(int proxy, int userData, float maxFraction);
+    }
+
+    private final float margin;
+
+    private float[] minX, minY, maxX, maxY;
+    private int[] parent, child1, child2, height, userData;
+    private int capacity;
+    private int root = NULL;
+    private int freeList = NULL;
+
+    private int[] stack = new int[64];
+
+    /**
+     * Creates an empty tree
+     * @param margin How much each leaf box is enlarged on every side
+     */
+    JesterAABBTree(float margin) {
+        this.margin = margin;
+        capacity = 0;
+        minX = new float[0];
+        minY = new float[0];
+        maxX = new float[0];
+        maxY = new float[0];
+        parent = new int[0];
+        child1 = new int[0];
+        child2 = new int[0];
+        height = new int[0];
+        userData = new int[0];
+        grow(16);
+    }
+
+    /**
+     * Inserts a box and returns its proxy id
+     */
+    int createProxy(float x0, float y0, float x1, float y1, int data) {
+        int leaf = allocateNode();
+        minX[leaf] = x0 - margin;
+        minY[leaf] = y0 - margin;
+        maxX[leaf] = x1 + margin;
+        maxY[leaf] = y1 + margin;
+        userData[leaf] = data;
+        height[leaf] = 0;
+        insertLeaf(leaf);
+        return leaf;
+    }
+
+    /**
+     * Removes a proxy from the tree
+     */
+    void destroyProxy(int proxy) {
+        removeLeaf(proxy);
+        freeNode(proxy);
+    }
+
+    /**
+     * Updates the box of a proxy. The leaf is only re-inserted if the new box
+     * is no longer inside its fat box.
+     * @return true if the proxy was re-inserted
+     */
+    boolean moveProxy(int proxy, float x0, float y0, float x1, float y1) {
+        if (minX[proxy] <= x0 && minY[proxy] <= y0 && maxX[proxy] >= x1 && maxY[proxy] >= y1) {
+            return false;
+        }
+
+        removeLeaf(proxy);
+        minX[proxy] = x0 - margin;
+        minY[proxy] = y0 - margin;
+        maxX[proxy] = x1 + margin;
+        maxY[proxy] = y1 + margin;
+        insertLeaf(proxy);
+        return true;
+    }
+
+    void setUserData(int proxy, int data) {
+        userData[proxy] = data;
+    }
+
+    /**
+     * Reports every leaf whose fat box overlaps (or touches) the given box
+     * @return false if the callback stopped the query early
+     */
+    boolean query(float x0, float y0, float x1, float y1, QueryCallback callback) {
+        if (root == NULL) return true;
+
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (minX[node] > x1 || maxX[node] < x0 || minY[node] > y1 || maxY[node] < y0) continue;
+
+            if (child1[node] == NULL) {
+                if (!callback.reportProxy(node, userData[node])) return false;
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = child1[node];
+                stack[top++] = child2[node];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports every leaf whose fat box is crossed by the segment from (x1, y1) to (x2, y2).
+     * Leaves are not reported in order; the callback clips the ray as it finds closer hits.
+     */
+    void raycast(float x1, float y1, float x2, float y2, RaycastCallback callback) {
+        if (root == NULL) return;
+
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        float maxFraction = 1f;
+
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!segmentHitsBox(x1, y1, dx, dy, maxFraction, node)) continue;
+
+            if (child1[node] == NULL) {
+                maxFraction = callback.reportRay(node, userData[node], maxFraction);
+                if (maxFraction <= 0) return;
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = child1[node];
+                stack[top++] = child2[node];
+            }
+        }
+    }
+
+    // Slab test of the segment start + t * (dx, dy), t in [0, maxFraction], against a node box
+    private boolean segmentHitsBox(float x, float y, float dx, float dy, float maxFraction, int node) {
+        float tMin = 0;
+        float tMax = maxFraction;
+
+        if (dx == 0) {
+            if (x < minX[node] || x > maxX[node]) return false;
+        } else {
+            float t0 = (minX[node] - x) / dx;
+            float t1 = (maxX[node] - x) / dx;
+            tMin = Math.max(tMin, Math.min(t0, t1));
+            tMax = Math.min(tMax, Math.max(t0, t1));
+            if (tMin > tMax) return false;
+        }
+
+        if (dy == 0) {
+            return y >= minY[node] && y <= maxY[node];
+        }
+        float t0 = (minY[node] - y) / dy;
+        float t1 = (maxY[node] - y) / dy;
+        tMin = Math.max(tMin, Math.min(t0, t1));
+        tMax = Math.min(tMax, Math.max(t0, t1));
+        return tMin <= tMax;
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parent[leaf] = NULL;
+            return;
+        }
+
+        // Find the cheapest sibling by the surface-area heuristic (perimeter in 2D)
+        float lx0 = minX[leaf], ly0 = minY[leaf], lx1 = maxX[leaf], ly1 = maxY[leaf];
+        int index = root;
+        while (child1[index] != NULL) {
+            int c1 = child1[index];
+            int c2 = child2[index];
+
+            float area = perimeter(minX[index], minY[index], maxX[index], maxY[index]);
+            float combinedArea = perimeter(Math.min(minX[index], lx0), Math.min(minY[index], ly0),
+                    Math.max(maxX[index], lx1), Math.max(maxY[index], ly1));
+
+            // Cost of making a new parent for this node and the leaf
+            float cost = 2 * combinedArea;
+            // Minimum cost of pushing the leaf further down
+            float inheritanceCost = 2 * (combinedArea - area);
+
+            float cost1 = descendCost(c1, lx0, ly0, lx1, ly1) + inheritanceCost;
+            float cost2 = descendCost(c2, lx0, ly0, lx1, ly1) + inheritanceCost;
+
+            if (cost < cost1 && cost < cost2) break;
+            index = (cost1 < cost2) ? c1 : c2;
+        }
+
+        int sibling = index;
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+        parent[newParent] = oldParent;
+        userData[newParent] = NULL;
+        setUnion(newParent, leaf, sibling);
+        height[newParent] = height[sibling] + 1;
+
+        if (oldParent != NULL) {
+            if (child1[oldParent] == sibling) {
+                child1[oldParent] = newParent;
+            } else {
+                child2[oldParent] = newParent;
+            }
+        } else {
+            root = newParent;
+        }
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+
+        refitFrom(parent[leaf]);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+
+        int p = parent[leaf];
+        int grandParent = parent[p];
+        int sibling = (child1[p] == leaf) ? child2[p] : child1[p];
+
+        if (grandParent != NULL) {
+            if (child1[grandParent] == p) {
+                child1[grandParent] = sibling;
+            } else {
+                child2[grandParent] = sibling;
+            }
+            parent[sibling] = grandParent;
+            freeNode(p);
+            refitFrom(grandParent);
+        } else {
+            root = sibling;
+            parent[sibling] = NULL;
+            freeNode(p);
+        }
+    }
+
+    // Walks up the tree fixing heights and boxes, rebalancing on the way
+    private void refitFrom(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int c1 = child1[index];
+            int c2 = child2[index];
+            height[index] = 1 + Math.max(height[c1], height[c2]);
+            setUnion(index, c1, c2);
+            index = parent[index];
+        }
+    }
+
+    // Performs a left or right rotation if node A is imbalanced; returns the new subtree root
+    private int balance(int iA) {
+        if (child1[iA] == NULL || height[iA] < 2) return iA;
+
+        int iB = child1[iA];
+        int iC = child2[iA];
+        int balance = height[iC] - height[iB];
+
+        if (balance > 1) {
+            // Rotate C up
+            int iF = child1[iC];
+            int iG = child2[iC];
+
+            child1[iC] = iA;
+            parent[iC] = parent[iA];
+            parent[iA] = iC;
+            replaceChild(parent[iC], iA, iC);
+
+            if (height[iF] > height[iG]) {
+                child2[iC] = iF;
+                child2[iA] = iG;
+                parent[iG] = iA;
+                setUnion(iA, iB, iG);
+                setUnion(iC, iA, iF);
+                height[iA] = 1 + Math.max(height[iB], height[iG]);
+                height[iC] = 1 + Math.max(height[iA], height[iF]);
+            } else {
+                child2[iC] = iG;
+                child2[iA] = iF;
+                parent[iF] = iA;
+                setUnion(iA, iB, iF);
+                setUnion(iC, iA, iG);
+                height[iA] = 1 + Math.max(height[iB], height[iF]);
+                height[iC] = 1 + Math.max(height[iA], height[iG]);
+            }
+            return iC;
+        }
+
+        if (balance < -1) {
+            // Rotate B up
+            int iD = child1[iB];
+            int iE = child2[iB];
+
+            child1[iB] = iA;
+            parent[iB] = parent[iA];
+            parent[iA] = iB;
+            replaceChild(parent[iB], iA, iB);
+
+            if (height[iD] > height[iE]) {
+                child2[iB] = iD;
+                child1[iA] = iE;
+                parent[iE] = iA;
+                setUnion(iA, iC, iE);
+                setUnion(iB, iA, iD);
+                height[iA] = 1 + Math.max(height[iC], height[iE]);
+                height[iB] = 1 + Math.max(height[iA], height[iD]);
+            } else {
+                child2[iB] = iE;
+                child1[iA] = iD;
+                parent[iD] = iA;
+                setUnion(iA, iC, iD);
+                setUnion(iB, iA, iE);
+                height[iA] = 1 + Math.max(height[iC], height[iD]);
+                height[iB] = 1 + Math.max(height[iA], height[iE]);
+            }
+            return iB;
+        }
+
+        return iA;
+    }
+
+    private void replaceChild(int p, int oldChild, int newChild) {
+        if (p == NULL) {
+            root = newChild;
+        } else if (child1[p] == oldChild) {
+            child1[p] = newChild;
+        } else {
+            child2[p] = newChild;
+        }
+    }
+
+    private float descendCost(int child, float x0, float y0, float x1, float y1) {
+        float combined = perimeter(Math.min(minX[child], x0), Math.min(minY[child], y0),
+                Math.max(maxX[child], x1), Math.max(maxY[child], y1));
+        if (child1[child] == NULL) return combined;
+        return combined - perimeter(minX[child], minY[child], maxX[child], maxY[child]);
+    }
+
+    private void setUnion(int node, int a, int b) {
+        minX[node] = Math.min(minX[a], minX[b]);
+        minY[node] = Math.min(minY[a], minY[b]);
+        maxX[node] = Math.max(maxX[a], maxX[b]);
+        maxY[node] = Math.max(maxY[a], maxY[b]);
+    }
+
+    private static float perimeter(float x0, float y0, float x1, float y1) {
+        return 2 * ((x1 - x0) + (y1 - y0));
+    }
+
+    private int allocateNode() {
+        if (freeList == NULL) {
+            grow(capacity * 2);
+        }
+        int node = freeList;
+        freeList = parent[node];
+        parent[node] = NULL;
+        child1[node] = NULL;
+        child2[node] = NULL;
+        height[node] = 0;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        parent[node] = freeList;
+        height[node] = -1;
+        freeList = node;
+    }
+
+    private void grow(int newCapacity) {
+        minX = Arrays.copyOf(minX, newCapacity);
+        minY = Arrays.copyOf(minY, newCapacity);
+        maxX = Arrays.copyOf(maxX, newCapacity);
+        maxY = Arrays.copyOf(maxY, newCapacity);
+        parent = Arrays.copyOf(parent, newCapacity);
+        child1 = Arrays.copyOf(child1, newCapacity);
+        child2 = Arrays.copyOf(child2, newCapacity);
+        height = Arrays.copyOf(height, newCapacity);
+        userData = Arrays.copyOf(userData, newCapacity);
+
+        // Chain the new nodes onto the free list
+        for (int i = newCapacity - 1; i >= capacity; i--) {
+            parent[i] = freeList;
+            height[i] = -1;
+            freeList = i;
+        }
+        capacity = newCapacity;
+    }
+}
@@ -26,6 +26,22 @@ public class JesterAssets {
         }
     }
 
+    /**
+     * Loads images and packs them into a texture atlas with 1024x1024 pages.
+     * Each region is named after its path.
+     * @param paths Resource paths of the images, as for loadImage
+     * @return The packed atlas
+     * @throws IllegalArgumentException if a path is listed twice
+     */
+    public static JesterTextureAtlas loadAtlas(String... paths) {
+        JesterTextureAtlas atlas = new JesterTextureAtlas();
+        for (String path : paths) {
+            atlas.add(path, loadImage(path));
+        }
+        atlas.pack();
+        return atlas;
+    }
+
     // Add more asset types here in future
 }
 
@@ -0,0 +1,25 @@
+package jester;
+
+/**
+ * A broadphase quickly finds the pairs of colliders that might be touching,
+ * so the physics world only runs the exact collision test on those pairs.
+ */
+interface JesterBroadphase {
+
+    /**
+     * Fills the buffer with candidate pairs (indices into the collider store).
+     * Each pair must be reported once, with the lower index first.
+     * @param colliders All colliders in the world
+     * @param pairs The buffer to fill (cleared by the caller)
+     */
+    void collectPairs(JesterColliderStore colliders, JesterPairBuffer pairs);
+
+    /**
+     * Called after a collider was removed from the store. Broadphases that keep
+     * state between steps must forget the removed collider and follow the one that moved.
+     * @param index Index of the removed collider, now used by the moved collider
+     * @param last Old index of the moved collider (equal to index if none moved)
+     */
+    default void colliderRemoved(int index, int last) {
+    }
+}
@@ -20,18 +20,17 @@ public class JesterCollider {
         KINEMATIC  // Moves programmatically, not affected by gravity (moving platforms)
     }
 
+    private static final BodyType[] BODY_TYPES = BodyType.values();
+
     private JesterPhysics world;
-    private Type type;
-    private BodyType bodyType;
-    private float x, y;
-    private float width, height;
-    private float radius;
-    private float velocityX, velocityY;
+    private JesterColliderStore store; // Where the physics state of this collider lives
+    private int index;                 // Slot of this collider in the store (-1 once removed)
+    private int handle;                // Stable id, see JesterPhysics.getCollider(int)
     private String collisionClass = "Default";
-    private float mass = 1.0f;  // For pushing mechanics
+    private GameObject owner;          // Receives this collider's contact signals
 
     /**
-     * Creates a new collider
+     * Creates a new collider and adds it to the given world
      * @param world The physics world this collider belongs to
      * @param type The type of collider (RECTANGLE or CIRCLE)
      * @param x Initial X position
@@ -40,20 +39,22 @@ public class JesterCollider {
      */
     public JesterCollider(JesterPhysics world, Type type, float x, float y, float... params) {
         this.world = world;
-        this.type = type;
-        this.x = x;
-        this.y = y;
-        this.bodyType = BodyType.RIGID; // Default to RIGID
-        this.velocityX = 0;
-        this.velocityY = 0;
+        this.store = world.getStore();
+        checkFinite("x", x);
+        checkFinite("y", y);
+        for (float param : params) {
+            checkFinite("size", param);
+        }
 
         if (type == Type.RECTANGLE) {
-            this.width = params[0];
-            this.height = params[1];
-        } else if (type == Type.CIRCLE) {
-            this.radius = params[0];
-            this.width = this.height = radius * 2;
+            this.index = store.add(this, JesterColliderStore.TYPE_RECTANGLE, x, y, params[0], params[1], 0);
+        } else {
+            float radius = params[0];
+            this.index = store.add(this, JesterColliderStore.TYPE_CIRCLE, x, y, radius * 2, radius * 2, radius);
         }
+        this.handle = store.handle[index];
+        world.applyCollisionClass(index, collisionClass);
+        world.colliderMoved(index, x, y); // Sleeping bodies it lands on must notice it
     }
 
     /**
@@ -61,6 +62,7 @@ public class JesterCollider {
      * @param className The name of the collision class
      */
     public void setCollisionClass(String className) {
+        world.applyCollisionClass(index, className);
         this.collisionClass = className;
     }
 
@@ -77,14 +79,15 @@ public class JesterCollider {
      * @param dt Delta time since last update
      */
     public void update(float dt) {
-        if (bodyType != BodyType.RIGID) return;
+        if (store.bodyType[index] != JesterColliderStore.BODY_RIGID || !store.awake[index]) return;
 
         // Apply gravity
-        velocityY += world.getGravityY() * dt;
+        store.velocityY[index] += world.getGravityY() * dt;
 
         // Update position
-        x += velocityX * dt;
-        y += velocityY * dt;
+        store.x[index] += store.velocityX[index] * dt;
+        store.y[index] += store.velocityY[index] * dt;
+        store.markDirty(index);
     }
 
     /**
@@ -93,10 +96,12 @@ public class JesterCollider {
      * @param forceY The force in the Y direction
      */
     public void push(float forceX, float forceY) {
-        if (bodyType != BodyType.RIGID) return;
+        if (store.bodyType[index] != JesterColliderStore.BODY_RIGID) return;
 
-        velocityX += forceX / mass;
-        velocityY += forceY / mass;
+        float mass = store.mass[index];
+        store.velocityX[index] += forceX / mass;
+        store.velocityY[index] += forceY / mass;
+        store.wake(index);
     }
 
     /**
@@ -104,7 +109,36 @@ public class JesterCollider {
      * @param type The body type
      */
     public void setBodyType(BodyType type) {
-        this.bodyType = type;
+        store.bodyType[index] = (byte) type.ordinal();
+        store.wake(index);
+        store.markDirty(index); // STATIC/KINEMATIC and RIGID bodies live in different trees
+    }
+
+    /**
+     * Marks this collider as a bullet. Bullets are swept along their movement each step,
+     * so fast projectiles stop at thin STATIC or KINEMATIC walls instead of passing through.
+     * @param bullet true to turn on continuous collision for this collider
+     */
+    public void setBullet(boolean bullet) {
+        store.bullet[index] = bullet;
+    }
+
+    public boolean isBullet() { return store.bullet[index]; }
+
+    /**
+     * Wakes this body up if it was sleeping
+     */
+    public void wake() {
+        store.wake(index);
+    }
+
+    /**
+     * Checks if this body is awake. Resting bodies fall asleep and are not simulated
+     * until something touches or moves them. STATIC bodies never count as awake.
+     * @return true if the body is awake
+     */
+    public boolean isAwake() {
+        return store.isActive(index);
     }
 
     /**
@@ -112,7 +146,7 @@ public class JesterCollider {
      * @param mass The mass
      */
     public void setMass(float mass) {
-        this.mass = Math.max(0.1f, mass);
+        store.mass[index] = Math.max(0.1f, mass);
     }
 
     /**
@@ -120,25 +154,97 @@ public class JesterCollider {
      * @param g The graphics context
      */
     public void draw(JesterGraphics g) {
+        float x = getX();
+        float y = getY();
         g.setColor(Color.GREEN);
-        if (type == Type.RECTANGLE) {
-            g.drawRect("line", (int)x, (int)y, (int)width, (int)height, Color.GREEN);
-        } else if (type == Type.CIRCLE) {
+        if (getType() == Type.RECTANGLE) {
+            g.drawRect("line", (int)x, (int)y, (int)getWidth(), (int)getHeight(), Color.GREEN);
+        } else {
+            float radius = getRadius();
             g.drawCircle((int)(x + radius), (int)(y + radius), (int)radius, Color.GREEN);
         }
     }
 
+    /**
+     * Gets the X position to draw at, blended between the last two physics steps
+     * using the world's interpolation alpha
+     * @return The interpolated X position
+     */
+    public float getInterpolatedX() {
+        float alpha = world.getInterpolationAlpha();
+        return store.previousX[index] + (store.x[index] - store.previousX[index]) * alpha;
+    }
+
+    /**
+     * Gets the Y position to draw at, blended between the last two physics steps
+     * using the world's interpolation alpha
+     * @return The interpolated Y position
+     */
+    public float getInterpolatedY() {
+        float alpha = world.getInterpolationAlpha();
+        return store.previousY[index] + (store.y[index] - store.previousY[index]) * alpha;
+    }
+
+    /**
+     * Sets the game object this collider belongs to. The owner receives the world's
+     * contact events as signals ("contactBegin", "contactStay", "contactEnd") with the
+     * {@link JesterContactEvent} as data, once the world's contact events are turned on
+     * with {@link JesterPhysics#setContactEventsEnabled(boolean)}.
+     * @param owner The owning game object (or null)
+     */
+    public void setOwner(GameObject owner) {
+        this.owner = owner;
+    }
+
+    public GameObject getOwner() { return owner; }
+
+    /**
+     * Gets the handle of this collider. Unlike a reference, a handle can be stored as a
+     * plain int (in save data, network messages, arrays) and looked up again with
+     * {@link JesterPhysics#getCollider(int)}, which returns null once the collider is removed.
+     * A handle is never given out twice by the same world.
+     * @return The handle
+     */
+    public int getHandle() { return handle; }
+
+    /**
+     * Checks if this collider was removed from its world.
+     * A removed collider must not be used any more.
+     * @return true if the collider was removed
+     */
+    public boolean isRemoved() { return index < 0; }
+
+    /**
+     * Gets the index of this collider in its world's storage
+     * @return The storage index
+     */
+    int getIndex() { return index; }
+
+    // Called by the store when this collider moves to another index (or is removed, with -1)
+    void setIndex(int index) { this.index = index; }
+
+    JesterPhysics getWorld() { return world; }
+
+    // NaN or infinite positions would break the broadphases, so they are refused right away
+    private static void checkFinite(String what, float value) {
+        if (!Float.isFinite(value)) {
+            throw new IllegalArgumentException("Collider " + what + " must be a finite number: " + value);
+        }
+    }
+
     // Getters and setters
-    public float getX() { return x; }
-    public float getY() { return y; }
-    public void setX(float x) { this.x = x; }
-    public void setY(float y) { this.y = y; }
-    public float getWidth() { return width; }
-    public float getHeight() { return height; }
-    public float getVelocityY() { return velocityY; }
-    public void setVelocityY(float vy) { this.velocityY = vy; }
-    public BodyType getBodyType() { return bodyType; }
-    public float getMass() { return mass; }
-    public float getVelocityX() { return velocityX; }
-    public void setVelocityX(float vx) { velocityX = vx; }
+    public Type getType() { return store.type[index] == JesterColliderStore.TYPE_CIRCLE ? Type.CIRCLE : Type.RECTANGLE; }
+    public float getX() { return store.x[index]; }
+    public float getY() { return store.y[index]; }
+    public void setX(float x) { checkFinite("x", x); float old = store.x[index]; if (old != x) { store.x[index] = x; store.disturb(index); store.markDirty(index); world.colliderMoved(index, old, store.y[index]); } }
+    public void setY(float y) { checkFinite("y", y); float old = store.y[index]; if (old != y) { store.y[index] = y; store.disturb(index); store.markDirty(index); world.colliderMoved(index, store.x[index], old); } }
+    public float getWidth() { return store.width[index]; }
+    public float getHeight() { return store.height[index]; }
+    public float getRadius() { return store.radius[index]; }
+    public float getVelocityY() { return store.velocityY[index]; }
+    public void setVelocityY(float vy) { if (store.velocityY[index] != vy) { store.velocityY[index] = vy; store.disturb(index); } }
+    public BodyType getBodyType() { return BODY_TYPES[store.bodyType[index]]; }
+    public float getMass() { return store.mass[index]; }
+    public float getVelocityX() { return store.velocityX[index]; }
+    public void setVelocityX(float vx) { if (store.velocityX[index] != vx) { store.velocityX[index] = vx; store.disturb(index); } }
 }
\ No newline at end of file
@@ -0,0 +1,357 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays storage for all colliders of a physics world.
+ * Each property lives in its own primitive array and a collider is just an index
+ * into them, so the integration loop and the broadphases walk memory linearly
+ * instead of chasing one heap object per collider.
+ *
+ * JesterCollider objects are thin views that read and write these arrays.
+ *
+ * Removing a collider moves the last collider into its place, so the arrays stay
+ * packed and indices change. Code that needs to find a collider again later uses its
+ * handle instead: a slot number plus a generation that changes whenever the slot is
+ * reused, so a handle to a removed collider never finds its replacement.
+ * Handles are ints, so the generation has only 11 bits: a slot that has been used
+ * 2048 times is retired instead of wrapping around to an old handle.
+ */
+final class JesterColliderStore {
+    static final byte TYPE_RECTANGLE = 0;
+    static final byte TYPE_CIRCLE = 1;
+
+    static final byte BODY_STATIC = 0;
+    static final byte BODY_RIGID = 1;
+    static final byte BODY_KINEMATIC = 2;
+
+    // A handle is (generation << SLOT_BITS) | slot
+    private static final int SLOT_BITS = 20;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+
+    int size;
+    int version;         // Changes when many colliders may have moved at once (a physics step)
+    int[] dirty;         // Colliders added or moved by hand since the trees were last synced
+    int dirtyCount;
+
+    float[] x, y;
+    float[] previousX, previousY; // Position before the last step, for render interpolation
+    float[] width, height;
+    float[] radius;
+    float[] velocityX, velocityY;
+    float[] mass;
+    byte[] type;
+    byte[] bodyType;
+    int[] category;      // Collision class bit of the body
+    int[] mask;          // Collision class bits the body collides with
+    boolean[] bullet;    // Fast bodies that use continuous collision against STATIC/KINEMATIC bodies
+    boolean[] awake;     // Sleeping bodies are skipped by integration and resolution
+    float[] sleepTime;   // How long the body has been nearly still
+    JesterCollider[] views;
+    int[] handle;        // Handle of the collider at each index
+
+    // Handle slots: the index of the collider using the slot, or the next free slot
+    private int[] slotIndex = new int[64];
+    private int[] slotGeneration = new int[64];
+    private int slotCount;
+    private int freeSlot = -1;
+
+    JesterColliderStore() {
+        allocate(64);
+    }
+
+    /**
+     * Adds a collider and returns its index
+     */
+    int add(JesterCollider view, byte shape, float px, float py, float w, float h, float r) {
+        if (size == x.length) {
+            allocate(size * 2);
+        }
+        int i = size++;
+        handle[i] = allocateHandle(i);
+        views[i] = view;
+        type[i] = shape;
+        bodyType[i] = BODY_RIGID; // Default to RIGID
+        x[i] = px;
+        y[i] = py;
+        previousX[i] = px;
+        previousY[i] = py;
+        width[i] = w;
+        height[i] = h;
+        radius[i] = r;
+        velocityX[i] = 0;
+        velocityY[i] = 0;
+        mass[i] = 1.0f;
+        category[i] = 0;
+        mask[i] = -1;
+        bullet[i] = false;
+        awake[i] = true;
+        sleepTime[i] = 0;
+        markDirty(i);
+        return i;
+    }
+
+    /**
+     * Removes the collider at the given index by moving the last collider into its place
+     * @return The old index of the collider that moved into the gap (equal to i if none moved)
+     */
+    int remove(int i) {
+        int slot = slotOf(handle[i]);
+        if (slotGeneration[slot] < GENERATION_MASK) {
+            slotGeneration[slot]++;
+            slotIndex[slot] = freeSlot;
+            freeSlot = slot;
+        } else {
+            slotIndex[slot] = -1; // Out of generations: never reuse the slot
+        }
+
+        int last = --size;
+        if (i != last) {
+            move(last, i);
+            slotIndex[slotOf(handle[i])] = i;
+            views[i].setIndex(i);
+            markDirty(i); // Its old index may be in the dirty list
+        }
+        views[last] = null;
+        return last;
+    }
+
+    /**
+     * Finds the index of the collider with the given handle
+     * @return The index, or -1 if the collider was removed
+     */
+    int indexOf(int h) {
+        if (h < 0) return -1;
+        int slot = slotOf(h);
+        if (slot >= slotCount) return -1;
+        int i = slotIndex[slot];
+        return (i >= 0 && i < size && handle[i] == h) ? i : -1;
+    }
+
+    /**
+     * Finds the collider with the given handle
+     * @return The collider, or null if it was removed
+     */
+    JesterCollider viewOf(int h) {
+        int i = indexOf(h);
+        return (i < 0) ? null : views[i];
+    }
+
+    /**
+     * Gets the slot number part of a handle
+     */
+    static int slotOf(int h) {
+        return h & SLOT_MASK;
+    }
+
+    private int allocateHandle(int i) {
+        int slot;
+        if (freeSlot >= 0) {
+            slot = freeSlot;
+            freeSlot = slotIndex[slot];
+        } else {
+            if (slotCount > SLOT_MASK) {
+                throw new IllegalStateException("A physics world has run out of collider handles ("
+                        + (SLOT_MASK + 1) + " colliders at once, or slots retired after heavy reuse)");
+            }
+            if (slotCount == slotIndex.length) {
+                slotIndex = Arrays.copyOf(slotIndex, slotCount * 2);
+                slotGeneration = Arrays.copyOf(slotGeneration, slotCount * 2);
+            }
+            slot = slotCount++;
+        }
+        slotIndex[slot] = i;
+        return (slotGeneration[slot] << SLOT_BITS) | slot;
+    }
+
+    // Copies every property of one collider to another index
+    private void move(int from, int to) {
+        x[to] = x[from];
+        y[to] = y[from];
+        previousX[to] = previousX[from];
+        previousY[to] = previousY[from];
+        width[to] = width[from];
+        height[to] = height[from];
+        radius[to] = radius[from];
+        velocityX[to] = velocityX[from];
+        velocityY[to] = velocityY[from];
+        mass[to] = mass[from];
+        type[to] = type[from];
+        bodyType[to] = bodyType[from];
+        category[to] = category[from];
+        mask[to] = mask[from];
+        bullet[to] = bullet[from];
+        awake[to] = awake[from];
+        sleepTime[to] = sleepTime[from];
+        views[to] = views[from];
+        handle[to] = handle[from];
+    }
+
+    /**
+     * Remembers the current positions as the start of the next step
+     */
+    void savePreviousPositions() {
+        System.arraycopy(x, 0, previousX, 0, size);
+        System.arraycopy(y, 0, previousY, 0, size);
+    }
+
+    /**
+     * Applies gravity and velocity to every RIGID body
+     */
+    void integrate(float gravityY, float dt) {
+        version++;
+        float dvy = gravityY * dt;
+        for (int i = 0; i < size; i++) {
+            if (bodyType[i] != BODY_RIGID || !awake[i]) continue;
+            float vy = velocityY[i] + dvy;
+            velocityY[i] = vy;
+            x[i] += velocityX[i] * dt;
+            y[i] += vy * dt;
+        }
+    }
+
+    /**
+     * Applies gravity to the velocity of every RIGID body (first half of {@link #integrate})
+     */
+    void integrateVelocities(float gravityY, float dt) {
+        float dvy = gravityY * dt;
+        for (int i = 0; i < size; i++) {
+            if (bodyType[i] != BODY_RIGID || !awake[i]) continue;
+            velocityY[i] += dvy;
+        }
+    }
+
+    /**
+     * Moves every RIGID body by its velocity (second half of {@link #integrate})
+     */
+    void integratePositions(float dt) {
+        version++;
+        for (int i = 0; i < size; i++) {
+            if (bodyType[i] != BODY_RIGID || !awake[i]) continue;
+            x[i] += velocityX[i] * dt;
+            y[i] += velocityY[i] * dt;
+        }
+    }
+
+    /**
+     * Applies gravity to the velocity of every RIGID body in 16.16 fixed point
+     */
+    void integrateVelocitiesFixed(float gravityY, float dt) {
+        int dvy = multiplyFixed(toFixed(gravityY), toFixed(dt));
+        for (int i = 0; i < size; i++) {
+            if (bodyType[i] != BODY_RIGID || !awake[i]) continue;
+            velocityX[i] = fromFixed(toFixed(velocityX[i]));
+            velocityY[i] = fromFixed(toFixed(velocityY[i]) + dvy);
+        }
+    }
+
+    /**
+     * Moves every RIGID body by its velocity in 16.16 fixed point
+     */
+    void integratePositionsFixed(float dt) {
+        version++;
+        int fixedDt = toFixed(dt);
+        for (int i = 0; i < size; i++) {
+            if (bodyType[i] != BODY_RIGID || !awake[i]) continue;
+            x[i] = fromFixed(toFixed(x[i]) + multiplyFixed(toFixed(velocityX[i]), fixedDt));
+            y[i] = fromFixed(toFixed(y[i]) + multiplyFixed(toFixed(velocityY[i]), fixedDt));
+        }
+    }
+
+    private static int toFixed(float value) {
+        return Math.round(value * 65536f);
+    }
+
+    private static float fromFixed(int value) {
+        return value / 65536f;
+    }
+
+    private static int multiplyFixed(int a, int b) {
+        return (int) (((long) a * b) >> 16);
+    }
+
+    /**
+     * Checks if a body takes part in the simulation (not STATIC and not sleeping)
+     */
+    boolean isActive(int i) {
+        return bodyType[i] != BODY_STATIC && awake[i];
+    }
+
+    /**
+     * Checks if neither of two colliders can have moved since the last step:
+     * at least one is sleeping and the other is sleeping or STATIC
+     */
+    boolean isResting(int i, int j) {
+        return !isActive(i) && !isActive(j)
+                && (bodyType[i] != BODY_STATIC || bodyType[j] != BODY_STATIC);
+    }
+
+    /**
+     * Wakes a body up and restarts its sleep timer
+     */
+    void wake(int i) {
+        awake[i] = true;
+        sleepTime[i] = 0;
+    }
+
+    /**
+     * Puts a body to sleep and stops it
+     */
+    void sleep(int i) {
+        awake[i] = false;
+        velocityX[i] = 0;
+        velocityY[i] = 0;
+    }
+
+    /**
+     * Called when game code changes a body. A sleeping body wakes up; a KINEMATIC body
+     * that is moved by hand restarts its sleep timer, since it has no velocity to show it moves.
+     */
+    void disturb(int i) {
+        if (!awake[i] || bodyType[i] == BODY_KINEMATIC) {
+            wake(i);
+        }
+    }
+
+    /**
+     * Records that a collider was added or moved outside a physics step, so the trees
+     * only refit the colliders that changed. When more colliders changed than the world
+     * holds, everything is synced instead.
+     */
+    void markDirty(int i) {
+        if (dirtyCount >= size) {
+            version++;
+            dirtyCount = 0;
+            return;
+        }
+        dirty[dirtyCount++] = i;
+    }
+
+    private void allocate(int capacity) {
+        x = grow(x, capacity);
+        y = grow(y, capacity);
+        previousX = grow(previousX, capacity);
+        previousY = grow(previousY, capacity);
+        width = grow(width, capacity);
+        height = grow(height, capacity);
+        radius = grow(radius, capacity);
+        velocityX = grow(velocityX, capacity);
+        velocityY = grow(velocityY, capacity);
+        mass = grow(mass, capacity);
+        type = (type == null) ? new byte[capacity] : Arrays.copyOf(type, capacity);
+        bodyType = (bodyType == null) ? new byte[capacity] : Arrays.copyOf(bodyType, capacity);
+        category = (category == null) ? new int[capacity] : Arrays.copyOf(category, capacity);
+        mask = (mask == null) ? new int[capacity] : Arrays.copyOf(mask, capacity);
+        bullet = (bullet == null) ? new boolean[capacity] : Arrays.copyOf(bullet, capacity);
+        awake = (awake == null) ? new boolean[capacity] : Arrays.copyOf(awake, capacity);
+        sleepTime = grow(sleepTime, capacity);
+        views = (views == null) ? new JesterCollider[capacity] : Arrays.copyOf(views, capacity);
+        handle = (handle == null) ? new int[capacity] : Arrays.copyOf(handle, capacity);
+        dirty = (dirty == null) ? new int[capacity] : Arrays.copyOf(dirty, capacity);
+    }
+
+    private static float[] grow(float[] array, int capacity) {
+        return (array == null) ? new float[capacity] : Arrays.copyOf(array, capacity);
+    }
+}
@@ -11,6 +11,7 @@ import java.util.*;
 public class JesterCollisionClass {
     private String name;
     private Set<String> ignores;
+    private int id = -1; // Small integer id given by the physics world (-1 if not added to one)
 
     /**
      * Creates a new collision class
@@ -45,4 +46,24 @@ public class JesterCollisionClass {
     public String getName() {
         return name;
     }
+
+    /**
+     * Gets the id the physics world gave this class
+     * @return The id (0 to 31), or -1 if the class was not added to a world
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the category bit of this class (the bit colliders of this class set)
+     * @return The category bit, or 0 if the class was not added to a world
+     */
+    public int getCategoryBits() {
+        return (id < 0) ? 0 : 1 << id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
 }
\ No newline at end of file
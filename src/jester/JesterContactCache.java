@@ -0,0 +1,131 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the impulses each touching pair received in the last step, so the
+ * impulse solver can start from them (warm starting) instead of from zero.
+ *
+ * Pairs are keyed by a long built from the two collider handles, which stay the
+ * same when other colliders are removed and the store indices shift. Two open-addressing
+ * tables are swapped every step: last step's impulses are read from one while this
+ * step's are written to the other, so pairs that stopped touching drop out by themselves.
+ */
+final class JesterContactCache {
+    private Table previous = new Table(64);
+    private Table current = new Table(64);
+
+    /**
+     * Makes a key for a pair of colliders (the order of the two handles does not matter)
+     */
+    static long key(int a, int b) {
+        int low = Math.min(a, b);
+        int high = Math.max(a, b);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Spreads the bits of a pair key for open-addressing tables
+     */
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Finds the normal impulse stored for a pair last step
+     * @return The impulse, or 0 if the pair was not touching
+     */
+    float previousNormal(long key) {
+        int slot = previous.find(key);
+        return (slot < 0) ? 0 : previous.normal[slot];
+    }
+
+    /**
+     * Finds the friction impulse stored for a pair last step
+     * @return The impulse, or 0 if the pair was not touching
+     */
+    float previousTangent(long key) {
+        int slot = previous.find(key);
+        return (slot < 0) ? 0 : previous.tangent[slot];
+    }
+
+    /**
+     * Stores the impulses a pair ended this step with
+     */
+    void store(long key, float normal, float tangent) {
+        current.put(key, normal, tangent);
+    }
+
+    /**
+     * Finishes a step: this step's impulses become the ones read next step
+     */
+    void swap() {
+        Table old = previous;
+        previous = current;
+        current = old;
+        current.clear();
+    }
+
+    private static final class Table {
+        long[] keys;
+        float[] normal, tangent;
+        boolean[] used;
+        int count;
+
+        Table(int capacity) {
+            allocate(capacity);
+        }
+
+        int find(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long key, float n, float t) {
+            if ((count + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                count++;
+            }
+            normal[slot] = n;
+            tangent[slot] = t;
+        }
+
+        void clear() {
+            Arrays.fill(used, false);
+            count = 0;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            float[] oldNormal = normal, oldTangent = tangent;
+            boolean[] oldUsed = used;
+            allocate(capacity);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) put(oldKeys[i], oldNormal[i], oldTangent[i]);
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            normal = new float[capacity];
+            tangent = new float[capacity];
+            used = new boolean[capacity];
+            count = 0;
+        }
+    }
+}
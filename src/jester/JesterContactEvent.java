@@ -0,0 +1,74 @@
+package jester;
+
+/**
+ * Tells game code that two colliders started touching, are still touching, or stopped touching.
+ * The physics world reuses these objects every update, so read what you need from an event
+ * right away instead of keeping it.
+ */
+public class JesterContactEvent {
+    /** The kinds of contact events */
+    public enum Type {
+        BEGIN, // The colliders started touching this update
+        STAY,  // The colliders were already touching and still are
+        END    // The colliders stopped touching this update
+    }
+
+    /** Signal emitted on a collider's owner when a contact begins */
+    public static final String SIGNAL_BEGIN = "contactBegin";
+    /** Signal emitted on a collider's owner while a contact stays */
+    public static final String SIGNAL_STAY = "contactStay";
+    /** Signal emitted on a collider's owner when a contact ends */
+    public static final String SIGNAL_END = "contactEnd";
+
+    private Type type;
+    private JesterCollider colliderA;
+    private JesterCollider colliderB;
+
+    void set(Type type, JesterCollider a, JesterCollider b) {
+        this.type = type;
+        this.colliderA = a;
+        this.colliderB = b;
+    }
+
+    /**
+     * Gets what happened
+     * @return BEGIN, STAY or END
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Gets the first collider of the pair
+     * @return The first collider
+     */
+    public JesterCollider getColliderA() { return colliderA; }
+
+    /**
+     * Gets the second collider of the pair
+     * @return The second collider
+     */
+    public JesterCollider getColliderB() { return colliderB; }
+
+    /**
+     * Gets the collider on the other side of the contact
+     * @param self One of the two colliders
+     * @return The other collider
+     */
+    public JesterCollider getOther(JesterCollider self) {
+        return (self == colliderA) ? colliderB : colliderA;
+    }
+
+    /**
+     * Gets the name of the signal this event is emitted as
+     * @return SIGNAL_BEGIN, SIGNAL_STAY or SIGNAL_END
+     */
+    public String getSignalName() {
+        switch (type) {
+            case BEGIN:
+                return SIGNAL_BEGIN;
+            case STAY:
+                return SIGNAL_STAY;
+            default:
+                return SIGNAL_END;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package jester;
+
+/**
+ * Turns the touching pairs of each update into begin/stay/end contact events.
+ *
+ * The pairs touching during an update are compared with those of the update before.
+ * Events are written into a pool of reused event objects, and two pools are swapped
+ * after every update: game code reads last update's events while the next update
+ * writes into the other pool. Once the pools and sets have grown, nothing is allocated.
+ *
+ * Pairs are remembered by collider handle, so removing colliders between updates does
+ * not mix them up. When a touching collider is removed, its pairs end with an END event
+ * that is reported with the next update's events.
+ */
+final class JesterContactTracker {
+    // Handle pairs touching during the previous and the current update (list keeps the order, set finds them)
+    private JesterPairBuffer previousPairs = new JesterPairBuffer();
+    private JesterPairBuffer currentPairs = new JesterPairBuffer();
+    private JesterPairSet previousSet = new JesterPairSet();
+    private JesterPairSet currentSet = new JesterPairSet();
+
+    private JesterContactEvent[] writeEvents = new JesterContactEvent[0];
+    private JesterContactEvent[] readEvents = new JesterContactEvent[0];
+    private int writeCount;
+    private int readCount;
+
+    /**
+     * Records the touching pairs of one step. A pair touching in several steps of
+     * the same update is only counted once.
+     */
+    void addStep(JesterColliderStore store, JesterPairBuffer contacts) {
+        for (int k = 0; k < contacts.size; k++) {
+            int a = store.handle[contacts.first[k]];
+            int b = store.handle[contacts.second[k]];
+            if (currentSet.add(JesterContactCache.key(a, b))) {
+                currentPairs.add(a, b);
+            }
+        }
+    }
+
+    /**
+     * Finishes an update: builds its events and makes them readable
+     * @param store All colliders
+     */
+    void finishUpdate(JesterColliderStore store) {
+        for (int k = 0; k < currentPairs.size; k++) {
+            int a = currentPairs.first[k];
+            int b = currentPairs.second[k];
+            JesterCollider viewA = store.viewOf(a);
+            JesterCollider viewB = store.viewOf(b);
+            if (viewA == null || viewB == null) continue;
+            boolean wasTouching = previousSet.contains(JesterContactCache.key(a, b));
+            nextEvent().set(wasTouching ? JesterContactEvent.Type.STAY : JesterContactEvent.Type.BEGIN,
+                    viewA, viewB);
+        }
+        for (int k = 0; k < previousPairs.size; k++) {
+            int a = previousPairs.first[k];
+            int b = previousPairs.second[k];
+            if (currentSet.contains(JesterContactCache.key(a, b))) continue;
+            JesterCollider viewA = store.viewOf(a);
+            JesterCollider viewB = store.viewOf(b);
+            if (viewA != null && viewB != null) {
+                nextEvent().set(JesterContactEvent.Type.END, viewA, viewB);
+            }
+        }
+
+        // This update's pairs become the ones the next update is compared with
+        JesterPairBuffer pairs = previousPairs;
+        previousPairs = currentPairs;
+        currentPairs = pairs;
+        currentPairs.clear();
+        JesterPairSet set = previousSet;
+        previousSet = currentSet;
+        currentSet = set;
+        currentSet.clear();
+
+        // Publish the events
+        JesterContactEvent[] events = readEvents;
+        readEvents = writeEvents;
+        writeEvents = events;
+        readCount = writeCount;
+        writeCount = 0;
+    }
+
+    /**
+     * Ends the pairs of a collider that is about to be removed. Call it between updates,
+     * while the collider can still be found by its handle.
+     * @param store All colliders
+     * @param handle The handle of the removed collider
+     */
+    void colliderRemoved(JesterColliderStore store, int handle) {
+        JesterCollider removed = store.viewOf(handle);
+        int write = 0;
+        for (int k = 0; k < previousPairs.size; k++) {
+            int a = previousPairs.first[k];
+            int b = previousPairs.second[k];
+            if (a != handle && b != handle) {
+                previousPairs.first[write] = a;
+                previousPairs.second[write] = b;
+                write++;
+                continue;
+            }
+            // The pair is dropped from the list; the set may keep its key, since that handle is gone
+            JesterCollider other = store.viewOf(a == handle ? b : a);
+            if (other != null) {
+                if (a == handle) {
+                    nextEvent().set(JesterContactEvent.Type.END, removed, other);
+                } else {
+                    nextEvent().set(JesterContactEvent.Type.END, other, removed);
+                }
+            }
+        }
+        previousPairs.size = write;
+    }
+
+    /**
+     * Forgets all touching pairs and events
+     */
+    void reset() {
+        previousPairs.clear();
+        currentPairs.clear();
+        previousSet.clear();
+        currentSet.clear();
+        readCount = 0;
+        writeCount = 0;
+    }
+
+    int getEventCount() {
+        return readCount;
+    }
+
+    JesterContactEvent getEvent(int index) {
+        if (index < 0 || index >= readCount) {
+            throw new IndexOutOfBoundsException("Contact event " + index + " of " + readCount);
+        }
+        return readEvents[index];
+    }
+
+    /**
+     * Emits every event as a signal on the owners of the two colliders
+     */
+    void dispatchSignals() {
+        for (int k = 0; k < readCount; k++) {
+            JesterContactEvent event = readEvents[k];
+            GameObject ownerA = event.getColliderA().getOwner();
+            GameObject ownerB = event.getColliderB().getOwner();
+            if (ownerA == null && ownerB == null) continue;
+
+            String signal = event.getSignalName();
+            if (ownerA != null) ownerA.emitSignal(signal, event);
+            if (ownerB != null && ownerB != ownerA) ownerB.emitSignal(signal, event);
+        }
+    }
+
+    private JesterContactEvent nextEvent() {
+        if (writeCount == writeEvents.length) {
+            JesterContactEvent[] grown = new JesterContactEvent[Math.max(16, writeCount * 2)];
+            System.arraycopy(writeEvents, 0, grown, 0, writeCount);
+            for (int k = writeCount; k < grown.length; k++) {
+                grown[k] = new JesterContactEvent();
+            }
+            writeEvents = grown;
+        }
+        return writeEvents[writeCount++];
+    }
+}
@@ -0,0 +1,87 @@
+package jester;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the engine's main phases, so a recording opened in
+ * JDK Mission Control shows frames, physics updates, object updates and scene changes
+ * next to GC and allocation data. They are listed under the "Jester" category.
+ *
+ * When no recording is running, begin and commit do almost nothing and the JIT removes
+ * the event objects, so the events can stay in release builds.
+ */
+final class JesterFlightEvents {
+    private JesterFlightEvents() {}
+
+    @Name("jester.Frame")
+    @Label("Frame")
+    @Category("Jester")
+    @Description("One pass of the game loop: updates and render, without the wait for the next frame")
+    @StackTrace(false)
+    static final class Frame extends Event {
+        @Label("Updates")
+        @Description("Fixed updates run in this frame")
+        int updates;
+
+        @Label("Interpolation Alpha")
+        float interpolationAlpha;
+
+        @Label("Render Thread")
+        boolean renderThread;
+    }
+
+    @Name("jester.PhysicsUpdate")
+    @Label("Physics Update")
+    @Category("Jester")
+    @Description("One JesterPhysics update, with all of its steps")
+    @StackTrace(false)
+    static final class PhysicsUpdate extends Event {
+        @Label("Colliders")
+        int colliders;
+
+        @Label("Steps")
+        int steps;
+
+        @Label("Pair Tests")
+        int pairTests;
+
+        @Label("Contacts")
+        @Description("Contacts found by the last step")
+        int contacts;
+    }
+
+    @Name("jester.ObjectsUpdate")
+    @Label("Game Objects Update")
+    @Category("Jester")
+    @StackTrace(false)
+    static final class ObjectsUpdate extends Event {
+        @Label("Objects")
+        int objects;
+    }
+
+    @Name("jester.ObjectsRender")
+    @Label("Game Objects Render")
+    @Category("Jester")
+    @StackTrace(false)
+    static final class ObjectsRender extends Event {
+        @Label("Objects")
+        int objects;
+    }
+
+    @Name("jester.SceneChange")
+    @Label("Scene Change")
+    @Category("Jester")
+    @Description("JesterMain.setScene, including the new scene's init")
+    static final class SceneChange extends Event {
+        @Label("From")
+        String from;
+
+        @Label("To")
+        String to;
+    }
+}
@@ -0,0 +1,106 @@
+package jester;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits for frame deadlines and measures how evenly frames are spaced.
+ *
+ * Deadlines come from a fixed timeline (start + n * frame time) instead of from the end
+ * of the last frame, so small delays don't add up and the average rate matches the
+ * target. Waiting first sleeps most of the time away, then spins for the last stretch,
+ * because sleeping alone can wake up a millisecond or more too late.
+ */
+final class JesterFramePacer {
+    private static final long SPIN_THRESHOLD = 2_000_000L; // Spin for the last 2 ms
+    private static final long STATS_WINDOW = 1_000_000_000L;
+
+    private long deadline;        // When the current frame was due to start
+    private long lastFrameStart;
+
+    // Frame times measured in the current window
+    private long windowStart;
+    private int count;
+    private double sum, sumSquares;
+    private long max;
+
+    // Results of the last finished window
+    private double averageFrameTime;
+    private double jitter;
+    private long maxFrameTime;
+
+    /**
+     * Starts the timeline at the given time
+     */
+    void start(long now) {
+        deadline = now;
+        lastFrameStart = now;
+        windowStart = now;
+        count = 0;
+        sum = 0;
+        sumSquares = 0;
+        max = 0;
+    }
+
+    /**
+     * Waits until the next frame is due, then records the frame time
+     * @param frameTime The target frame time in nanoseconds (0 = don't wait)
+     * @param pacing How to wait
+     */
+    void waitForNextFrame(long frameTime, JesterMain.Pacing pacing) {
+        if (frameTime > 0) {
+            deadline += frameTime;
+            long now = System.nanoTime();
+            // More than a whole frame late: start a new timeline instead of rushing to catch up
+            if (now - deadline > frameTime) {
+                deadline = now;
+            }
+            waitUntil(deadline, pacing);
+        }
+        record(System.nanoTime());
+    }
+
+    private static void waitUntil(long deadline, JesterMain.Pacing pacing) {
+        if (pacing != JesterMain.Pacing.SPIN) {
+            long spin = (pacing == JesterMain.Pacing.HYBRID) ? SPIN_THRESHOLD : 0;
+            long remaining = deadline - System.nanoTime();
+            while (remaining > spin) {
+                LockSupport.parkNanos(remaining - spin);
+                if (Thread.currentThread().isInterrupted()) return;
+                remaining = deadline - System.nanoTime();
+            }
+            if (pacing == JesterMain.Pacing.SLEEP) return;
+        }
+        while (System.nanoTime() - deadline < 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void record(long now) {
+        long frameTime = now - lastFrameStart;
+        lastFrameStart = now;
+        count++;
+        sum += frameTime;
+        sumSquares += (double) frameTime * frameTime;
+        if (frameTime > max) max = frameTime;
+
+        if (now - windowStart >= STATS_WINDOW) {
+            averageFrameTime = sum / count;
+            jitter = Math.sqrt(Math.max(0, sumSquares / count - averageFrameTime * averageFrameTime));
+            maxFrameTime = max;
+            windowStart = now;
+            count = 0;
+            sum = 0;
+            sumSquares = 0;
+            max = 0;
+        }
+    }
+
+    /** Average frame time of the last second, in nanoseconds */
+    double getAverageFrameTime() { return averageFrameTime; }
+
+    /** Standard deviation of the frame times of the last second, in nanoseconds */
+    double getJitter() { return jitter; }
+
+    /** Longest frame of the last second, in nanoseconds */
+    long getMaxFrameTime() { return maxFrameTime; }
+}
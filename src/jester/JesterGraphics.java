@@ -13,6 +13,7 @@ public class JesterGraphics {
     private Font defaultFont; // Default font for text rendering
     private static JesterFilter defaultFilter = JesterFilter.VECTOR;
     private Stack<AffineTransform> transformStack;
+    private JesterRenderCommands recorder; // While recording, calls are written here instead of drawn
 
     /**
      * Constructor that initializes the default font.
@@ -39,10 +40,38 @@ public class JesterGraphics {
         return g; // Return the stored Graphics2D context
     }
 
+    /**
+     * Starts writing draw calls into a command list instead of drawing them
+     * (used by the render thread mode of JesterMain)
+     */
+    void startRecording(JesterRenderCommands commands) {
+        this.recorder = commands;
+    }
+
+    /**
+     * Goes back to drawing immediately
+     */
+    void stopRecording() {
+        this.recorder = null;
+    }
+
+    /**
+     * Checks if draw calls are being recorded for the render thread.
+     * While recording, {@link #getGraphics()} must not be drawn to directly.
+     * @return true if recording
+     */
+    public boolean isRecording() {
+        return recorder != null;
+    }
+
     /**
      * Saves the current transformation state
      */
     public void push() {
+        if (recorder != null) {
+            recorder.push();
+            return;
+        }
         transformStack.push(g.getTransform());
     }
 
@@ -50,6 +79,10 @@ public class JesterGraphics {
      * Restores the last saved transformation state
      */
     public void pop() {
+        if (recorder != null) {
+            recorder.pop();
+            return;
+        }
         if (!transformStack.isEmpty()) {
             g.setTransform(transformStack.pop());
         }
@@ -60,6 +93,10 @@ public class JesterGraphics {
      * @param angle Rotation angle in radians
      */
     public void rotate(float angle) {
+        if (recorder != null) {
+            recorder.rotate(angle);
+            return;
+        }
         g.rotate(angle);
     }
 
@@ -69,6 +106,10 @@ public class JesterGraphics {
      * @param y Vertical scale factor
      */
     public void scale(float x, float y) {
+        if (recorder != null) {
+            recorder.scale(x, y);
+            return;
+        }
         g.scale(x, y);
     }
 
@@ -82,6 +123,10 @@ public class JesterGraphics {
      * @param color The color of the rectangle.
      */
     public void drawRect(String mode, int x, int y, int width, int height, Color color) {
+        if (recorder != null) {
+            recorder.rect(mode, x, y, width, height, color);
+            return;
+        }
         g.setColor(color);
         if ("fill".equalsIgnoreCase(mode)) {
             g.fillRect(x, y, width, height);
@@ -90,6 +135,18 @@ public class JesterGraphics {
         }
     }
 
+    /**
+     * Fills a rectangle with the current color (see {@link #setColor(Color)}), so runs of
+     * same-colored rectangles need only one color change
+     */
+    void fillRect(int x, int y, int width, int height) {
+        if (recorder != null) {
+            recorder.fillRect(x, y, width, height);
+            return;
+        }
+        g.fillRect(x, y, width, height);
+    }
+
     /**
      * Draws a string of text at the specified position with the given color.
      * If no font is specified, the default font is used.
@@ -100,6 +157,10 @@ public class JesterGraphics {
      * @param font The font to use for the text (optional).
      */
     public void drawText(String text, int x, int y, Color color, Font font) {
+        if (recorder != null) {
+            recorder.text(text, x, y, color, font);
+            return;
+        }
         g.setColor(color);
         if (font != null) {
             g.setFont(font); // Use specified font if provided
@@ -120,6 +181,10 @@ public class JesterGraphics {
      * @param color The color to fill the circle.
      */
     public void drawCircle(int x, int y, int radius, Color color) {
+        if (recorder != null) {
+            recorder.circle(x, y, radius, color);
+            return;
+        }
         g.setColor(color);
         //  g.fillOval(x - radius, y - radius, radius * 2, radius * 2);
         g.fill(new Ellipse2D.Float(x - radius, y - radius, radius * 2, radius * 2));
@@ -134,6 +199,10 @@ public class JesterGraphics {
      * @param radiusY The y-radius (for ellipse).
      */
     public void drawEllipse(String mode, int x, int y, int radiusX, int radiusY) {
+        if (recorder != null) {
+            recorder.ellipse(mode, x, y, radiusX, radiusY);
+            return;
+        }
         if ("fill".equalsIgnoreCase(mode)) {
             g.fill(new Ellipse2D.Float(x - radiusX, y - radiusY, radiusX * 2, radiusY * 2));
         } else if ("line".equalsIgnoreCase(mode)) {
@@ -153,6 +222,10 @@ public class JesterGraphics {
      * @param color The color to fill the rectangle.
      */
     public void drawRoundRect(String mode, int x, int y, int width, int height, int arcWidth, int arcHeight, Color color) {
+        if (recorder != null) {
+            recorder.roundRect(mode, x, y, width, height, arcWidth, arcHeight, color);
+            return;
+        }
         g.setColor(color);
         if ("fill".equalsIgnoreCase(mode)) {
             g.fill(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
@@ -187,6 +260,10 @@ public class JesterGraphics {
      * @param color The color of the line
      */
     public void drawLine(int x1, int y1, int x2, int y2, Color color) {
+        if (recorder != null) {
+            recorder.line(x1, y1, x2, y2, color);
+            return;
+        }
         g.setColor(color);
         g.drawLine(x1, y1, x2, y2);
     }
@@ -202,6 +279,10 @@ public class JesterGraphics {
      * @param color The color of the arc.
      */
     public void drawArc(int x, int y, int width, int height, float startAngle, float arcAngle, Color color) {
+        if (recorder != null) {
+            recorder.arc(x, y, width, height, startAngle, arcAngle, color);
+            return;
+        }
         g.setColor(color);
         g.draw(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.OPEN));
     }
@@ -212,6 +293,10 @@ public class JesterGraphics {
      * @param y The y-coordinate of the point.
      */
     public void drawPoint(int x, int y) {
+        if (recorder != null) {
+            recorder.point(x, y);
+            return;
+        }
         g.fill(new Ellipse2D.Float(x - 1, y - 1, 2, 2)); // Draw a small circle for the point
     }
 
@@ -236,6 +321,10 @@ public class JesterGraphics {
      * @param y3 The y-coordinate of the third vertex.
      */
     public void drawTriangle(String mode, int x1, int y1, int x2, int y2, int x3, int y3) {
+        if (recorder != null) {
+            recorder.triangle(mode, x1, y1, x2, y2, x3, y3);
+            return;
+        }
         int[] xPoints = {x1, x2, x3};
         int[] yPoints = {y1, y2, y3};
         if ("fill".equalsIgnoreCase(mode)) {
@@ -252,6 +341,10 @@ public class JesterGraphics {
      * @param height The height of the screen.
      */
     public void clear(Color color, int width, int height) {
+        if (recorder != null) {
+            recorder.clearScreen(color, width, height);
+            return;
+        }
         g.setColor(color);
         g.fillRect(0, 0, width, height);
     }
@@ -261,6 +354,10 @@ public class JesterGraphics {
      * @param color The color to set.
      */
     public void setColor(Color color) {
+        if (recorder != null) {
+            recorder.setColor(color);
+            return;
+        }
         if (g != null) g.setColor(color);
     }
 
@@ -271,15 +368,83 @@ public class JesterGraphics {
      * @param y The y-coordinate to draw the image.
      */
     public void drawImage(Image image, int x, int y) {
+        if (recorder != null) {
+            recorder.image(image, x, y);
+            return;
+        }
         g.drawImage(image, x, y, null);
     }
 
+    /**
+     * Draws an image scaled to the given size.
+     * @param image The image to draw.
+     * @param x The x-coordinate to draw the image.
+     * @param y The y-coordinate to draw the image.
+     * @param width The width to draw the image at.
+     * @param height The height to draw the image at.
+     */
+    public void drawImage(Image image, int x, int y, int width, int height) {
+        if (recorder != null) {
+            recorder.image(image, x, y, width, height);
+            return;
+        }
+        g.drawImage(image, x, y, width, height, null);
+    }
+
+    /**
+     * Draws part of an image, scaled to the given size.
+     * @param image The image to draw from.
+     * @param x The x-coordinate to draw at.
+     * @param y The y-coordinate to draw at.
+     * @param width The width to draw at.
+     * @param height The height to draw at.
+     * @param srcX The left edge of the part in the image.
+     * @param srcY The top edge of the part in the image.
+     * @param srcWidth The width of the part.
+     * @param srcHeight The height of the part.
+     */
+    public void drawImage(Image image, int x, int y, int width, int height,
+                          int srcX, int srcY, int srcWidth, int srcHeight) {
+        if (recorder != null) {
+            recorder.imagePart(image, x, y, width, height, srcX, srcY, srcWidth, srcHeight);
+            return;
+        }
+        g.drawImage(image, x, y, x + width, y + height, srcX, srcY, srcX + srcWidth, srcY + srcHeight, null);
+    }
+
+    /**
+     * Draws a texture atlas region at its own size.
+     * @param region The region to draw.
+     * @param x The x-coordinate to draw at.
+     * @param y The y-coordinate to draw at.
+     */
+    public void drawRegion(JesterTextureRegion region, int x, int y) {
+        drawRegion(region, x, y, region.getWidth(), region.getHeight());
+    }
+
+    /**
+     * Draws a texture atlas region scaled to the given size.
+     * @param region The region to draw.
+     * @param x The x-coordinate to draw at.
+     * @param y The y-coordinate to draw at.
+     * @param width The width to draw at.
+     * @param height The height to draw at.
+     */
+    public void drawRegion(JesterTextureRegion region, int x, int y, int width, int height) {
+        drawImage(region.getPage(), x, y, width, height,
+                region.getX(), region.getY(), region.getWidth(), region.getHeight());
+    }
+
     /**
      * Draws a polygon defined by an array of points.
      * @param points An array of JesterVector2 representing the vertices of the polygon.
      * @param color The color to fill the polygon.
      */
     public void drawPolygon(JesterVector2[] points, Color color) {
+        if (recorder != null) {
+            recorder.polygon(points, color);
+            return;
+        }
         int[] xPoints = new int[points.length];
         int[] yPoints = new int[points.length];
         for (int i = 0; i < points.length; i++) {
@@ -296,6 +461,10 @@ public class JesterGraphics {
      * @param dy The distance to translate along Y axis
      */
     public void translate(float dx, float dy) {
+        if (recorder != null) {
+            recorder.translate(dx, dy);
+            return;
+        }
         g.translate(dx, dy);
     }
 
@@ -303,6 +472,10 @@ public class JesterGraphics {
      * Resets all transformations to the identity transform
      */
     public void resetTransform() {
+        if (recorder != null) {
+            recorder.resetTransform();
+            return;
+        }
         g.setTransform(new AffineTransform());
     }
 
@@ -0,0 +1,168 @@
+package jester;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Runs a scene without a window, for bots, servers and automated tests.
+ * There is no JFrame, no input listeners and nothing is drawn unless you ask for a frame
+ * with {@link #renderFrame()}. Updates always get the same fixed dt. By default they run
+ * as fast as possible, so hours of game time can be simulated in seconds;
+ * {@link #setRealTime(boolean)} paces them like the normal game loop instead.
+ *
+ * <pre>
+ * JesterHeadless game = new JesterHeadless(new GameScene());
+ * game.runSeconds(3600);                // Simulate one hour
+ * BufferedImage shot = game.renderFrame();
+ * </pre>
+ */
+public class JesterHeadless implements Runnable {
+    private final int width;
+    private final int height;
+    private int updateRate = 60;
+    private boolean realTime;
+    private volatile boolean running;
+
+    private long updateCount;
+    private BufferedImage image; // Reused by renderFrame
+
+    private final JesterFramePacer pacer = new JesterFramePacer();
+
+    private static final int ZONE_UPDATE = Jester.profiler.zone("update");
+
+    /**
+     * Creates a headless runner with an 800x600 frame size
+     * @param startScene The scene to run
+     */
+    public JesterHeadless(Scene startScene) {
+        this(startScene, 800, 600);
+    }
+
+    /**
+     * Creates a headless runner and starts the scene (calls its init)
+     * @param startScene The scene to run
+     * @param width Width of rendered frames and of Jester.window
+     * @param height Height of rendered frames and of Jester.window
+     */
+    public JesterHeadless(Scene startScene, int width, int height) {
+        this.width = width;
+        this.height = height;
+        JesterWindow.setHeadlessSize(width, height);
+        JesterMain.setScene(startScene); // Scenes can still switch with JesterMain.setScene
+    }
+
+    /**
+     * Sets how many updates make one second of game time
+     * @param updatesPerSecond The update rate (default 60)
+     */
+    public void setUpdateRate(int updatesPerSecond) {
+        this.updateRate = Math.max(1, updatesPerSecond);
+    }
+
+    public int getUpdateRate() { return updateRate; }
+
+    /**
+     * Chooses between running as fast as possible (default) and at real speed
+     * @param realTime true to wait between updates like a normal game
+     */
+    public void setRealTime(boolean realTime) {
+        this.realTime = realTime;
+    }
+
+    public boolean isRealTime() { return realTime; }
+
+    /**
+     * Runs a number of updates
+     * @param count How many updates to run
+     */
+    public void runUpdates(long count) {
+        running = true;
+        pacer.start(System.nanoTime());
+        Jester.timer.startLoop();
+        for (long i = 0; i < count && running; i++) {
+            updateOnce();
+        }
+        running = false;
+    }
+
+    /**
+     * Runs enough updates to simulate the given game time
+     * @param seconds Game time in seconds
+     */
+    public void runSeconds(double seconds) {
+        runUpdates(Math.round(seconds * updateRate));
+    }
+
+    /**
+     * Runs updates until {@link #stop()} is called (for example from another thread,
+     * or from the scene when a test is done)
+     */
+    @Override
+    public void run() {
+        running = true;
+        pacer.start(System.nanoTime());
+        Jester.timer.startLoop();
+        while (running) {
+            updateOnce();
+        }
+    }
+
+    /**
+     * Stops {@link #run()} or the current runUpdates/runSeconds call after the update in progress
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Draws the current scene into an offscreen image.
+     * The same image is reused by the next call, so copy it if you want to keep it.
+     * @return The rendered frame
+     */
+    public BufferedImage renderFrame() {
+        if (image == null) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D g = image.createGraphics();
+        Jester.graphics.setGraphics(g);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+
+        Scene scene = JesterMain.getCurrentScene();
+        if (scene != null) {
+            scene.render(1f);
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Gets how many updates have run so far
+     * @return The update count
+     */
+    public long getUpdateCount() { return updateCount; }
+
+    /**
+     * Gets how much game time has been simulated so far
+     * @return The game time in seconds
+     */
+    public double getSimulatedTime() { return (double) updateCount / updateRate; }
+
+    private void updateOnce() {
+        Jester.profiler.begin(ZONE_UPDATE);
+        Scene scene = JesterMain.getCurrentScene();
+        if (scene != null) {
+            scene.update(1f / updateRate);
+        }
+        JesterKeyboard.endFrame();
+        Jester.profiler.end(ZONE_UPDATE);
+        Jester.profiler.endFrame();
+        updateCount++;
+
+        if (realTime) {
+            pacer.waitForNextFrame(1_000_000_000L / updateRate, JesterMain.Pacing.HYBRID);
+        }
+        Jester.timer.loopStep();
+    }
+}
@@ -0,0 +1,123 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * A sequential-impulse contact solver.
+ * Instead of moving overlapping bodies apart one pair at a time, it changes their
+ * velocities with small pushes (impulses) and repeats over all contacts a few times,
+ * so a stack of boxes settles together. Each pair starts from the impulse it needed
+ * last step (warm starting), which is what lets stacks come to rest in a few iterations.
+ */
+final class JesterImpulseSolver {
+    private static final float BAUMGARTE = 0.2f; // How much of the overlap to fix per step
+    private static final float SLOP = 0.5f;      // Overlap (pixels) allowed without correction
+
+    private final JesterContactCache cache = new JesterContactCache();
+
+    // Per contact data for the current step
+    private float[] invMassA = new float[64], invMassB = new float[64];
+    private float[] normalImpulse = new float[64], tangentImpulse = new float[64];
+    private float[] bias = new float[64];
+    private long[] keys = new long[64];
+
+    /**
+     * Solves the contacts by changing the velocities of the bodies
+     * @param store All colliders
+     * @param manifolds The contacts of this step
+     * @param count How many manifolds are in use
+     * @param dt The step length
+     * @param iterations How many passes over all contacts
+     * @param friction Friction coefficient between touching bodies
+     */
+    void solve(JesterColliderStore store, JesterManifold[] manifolds, int count, float dt,
+               int iterations, float friction) {
+        ensureCapacity(count);
+        float[] vx = store.velocityX;
+        float[] vy = store.velocityY;
+
+        // Set up and warm start
+        for (int k = 0; k < count; k++) {
+            JesterManifold m = manifolds[k];
+            int a = m.first;
+            int b = m.second;
+            invMassA[k] = inverseMass(store, a);
+            invMassB[k] = inverseMass(store, b);
+            bias[k] = BAUMGARTE / dt * Math.max(m.depth - SLOP, 0);
+
+            keys[k] = JesterContactCache.key(store.handle[a], store.handle[b]);
+            float pn = cache.previousNormal(keys[k]);
+            float pt = cache.previousTangent(keys[k]);
+            normalImpulse[k] = pn;
+            tangentImpulse[k] = pt;
+
+            float px = m.normalX * pn - m.normalY * pt;
+            float py = m.normalY * pn + m.normalX * pt;
+            vx[a] -= px * invMassA[k];
+            vy[a] -= py * invMassA[k];
+            vx[b] += px * invMassB[k];
+            vy[b] += py * invMassB[k];
+        }
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int k = 0; k < count; k++) {
+                float invSum = invMassA[k] + invMassB[k];
+                if (invSum == 0) continue;
+
+                JesterManifold m = manifolds[k];
+                int a = m.first;
+                int b = m.second;
+                float nx = m.normalX;
+                float ny = m.normalY;
+
+                // Normal: stop the bodies moving into each other (and push out any deep overlap)
+                float vn = (vx[b] - vx[a]) * nx + (vy[b] - vy[a]) * ny;
+                float lambda = (-vn + bias[k]) / invSum;
+                float oldImpulse = normalImpulse[k];
+                normalImpulse[k] = Math.max(oldImpulse + lambda, 0); // Contacts can push, never pull
+                lambda = normalImpulse[k] - oldImpulse;
+                apply(vx, vy, a, b, nx * lambda, ny * lambda, invMassA[k], invMassB[k]);
+
+                // Friction: slow down sliding, limited by how hard the bodies press together
+                float tx = -ny;
+                float ty = nx;
+                float vt = (vx[b] - vx[a]) * tx + (vy[b] - vy[a]) * ty;
+                float lambdaT = -vt / invSum;
+                float maxFriction = friction * normalImpulse[k];
+                oldImpulse = tangentImpulse[k];
+                tangentImpulse[k] = Math.max(-maxFriction, Math.min(oldImpulse + lambdaT, maxFriction));
+                lambdaT = tangentImpulse[k] - oldImpulse;
+                apply(vx, vy, a, b, tx * lambdaT, ty * lambdaT, invMassA[k], invMassB[k]);
+            }
+        }
+
+        for (int k = 0; k < count; k++) {
+            cache.store(keys[k], normalImpulse[k], tangentImpulse[k]);
+        }
+        cache.swap();
+    }
+
+    private static void apply(float[] vx, float[] vy, int a, int b, float px, float py, float invA, float invB) {
+        vx[a] -= px * invA;
+        vy[a] -= py * invA;
+        vx[b] += px * invB;
+        vy[b] += py * invB;
+    }
+
+    // STATIC, KINEMATIC and sleeping bodies are not moved by contacts
+    private static float inverseMass(JesterColliderStore store, int i) {
+        if (store.bodyType[i] != JesterColliderStore.BODY_RIGID || !store.awake[i]) return 0;
+        return 1f / store.mass[i];
+    }
+
+    private void ensureCapacity(int count) {
+        if (invMassA.length >= count) return;
+        int size = Math.max(count, invMassA.length * 2);
+        invMassA = Arrays.copyOf(invMassA, size);
+        invMassB = Arrays.copyOf(invMassB, size);
+        normalImpulse = Arrays.copyOf(normalImpulse, size);
+        tangentImpulse = Arrays.copyOf(tangentImpulse, size);
+        bias = Arrays.copyOf(bias, size);
+        keys = Arrays.copyOf(keys, size);
+    }
+}
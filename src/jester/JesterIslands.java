@@ -0,0 +1,125 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * Decides which bodies may sleep.
+ * Bodies that touch each other (ignoring STATIC bodies) form an island. An island only
+ * falls asleep when every body in it has been nearly still for long enough, and the
+ * whole island wakes up as soon as one of its bodies is awake and moving. That way a
+ * sleeping stack is woken as a unit when something lands on it.
+ *
+ * Islands are rebuilt every step with a union-find over the contact list.
+ */
+final class JesterIslands {
+    private int[] parent = new int[64];
+    private float[] minSleepTime = new float[64]; // Per island root
+    private boolean[] hasAwake = new boolean[64];  // Per island root
+
+    private int awakeCount;
+    private int sleepingCount;
+
+    /**
+     * Updates sleep timers and puts islands to sleep or wakes them up
+     * @param store All colliders
+     * @param contacts The touching pairs of this step
+     * @param dt The step length
+     * @param sleepVelocity Bodies slower than this count as still
+     * @param timeToSleep How long an island must be still before it sleeps
+     */
+    void update(JesterColliderStore store, JesterPairBuffer contacts, float dt,
+                float sleepVelocity, float timeToSleep) {
+        int count = store.size;
+        ensureCapacity(count);
+        float sleepVelocitySq = sleepVelocity * sleepVelocity;
+
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+            minSleepTime[i] = Float.MAX_VALUE;
+            hasAwake[i] = false;
+
+            if (store.bodyType[i] == JesterColliderStore.BODY_STATIC || !store.awake[i]) continue;
+            // Both the velocity and the distance actually moved must be small: the POSITIONAL
+            // solver zeroes the velocity of stacked bodies, even while the stack is falling
+            float vx = store.velocityX[i];
+            float vy = store.velocityY[i];
+            float mx = (store.x[i] - store.previousX[i]) / dt;
+            float my = (store.y[i] - store.previousY[i]) / dt;
+            if (vx * vx + vy * vy < sleepVelocitySq && mx * mx + my * my < sleepVelocitySq) {
+                store.sleepTime[i] += dt;
+            } else {
+                store.sleepTime[i] = 0;
+            }
+        }
+
+        // Static bodies never join islands, or the whole level would be one island
+        for (int k = 0; k < contacts.size; k++) {
+            int i = contacts.first[k];
+            int j = contacts.second[k];
+            if (store.bodyType[i] != JesterColliderStore.BODY_STATIC
+                    && store.bodyType[j] != JesterColliderStore.BODY_STATIC) {
+                union(i, j);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (store.bodyType[i] == JesterColliderStore.BODY_STATIC || !store.awake[i]) continue;
+            int root = find(i);
+            hasAwake[root] = true;
+            minSleepTime[root] = Math.min(minSleepTime[root], store.sleepTime[i]);
+        }
+
+        awakeCount = 0;
+        sleepingCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (store.bodyType[i] == JesterColliderStore.BODY_STATIC) continue;
+            int root = find(i);
+
+            if (hasAwake[root]) {
+                if (minSleepTime[root] >= timeToSleep) {
+                    store.sleep(i);
+                } else if (!store.awake[i]) {
+                    store.wake(i);
+                }
+            }
+
+            if (store.awake[i]) {
+                awakeCount++;
+            } else {
+                sleepingCount++;
+            }
+        }
+    }
+
+    int getAwakeCount() {
+        return awakeCount;
+    }
+
+    int getSleepingCount() {
+        return sleepingCount;
+    }
+
+    private int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]]; // Path halving
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (parent.length >= count) return;
+        int size = Math.max(count, parent.length * 2);
+        parent = Arrays.copyOf(parent, size);
+        minSleepTime = Arrays.copyOf(minSleepTime, size);
+        hasAwake = Arrays.copyOf(hasAwake, size);
+    }
+}
@@ -40,6 +40,12 @@ public class JesterLayeredScene extends Scene {
         overlayScene.render(); // Render the overlay scene on top
     }
 
+    @Override
+    public void render(float alpha) {
+        baseScene.render(alpha);   // Render the base scene
+        overlayScene.render(alpha); // Render the overlay scene on top
+    }
+
     @Override
     public void pause() {
         baseScene.pause();    // Pause the base scene
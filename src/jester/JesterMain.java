@@ -6,12 +6,39 @@ import java.awt.image.BufferStrategy;
 
 public class JesterMain extends Canvas implements Runnable {
 
+    /** How the loop waits for the next frame */
+    public enum Pacing {
+        SLEEP,  // Only sleep (least CPU, most jitter)
+        HYBRID, // Sleep, then spin for the last stretch (default)
+        SPIN    // Only spin (least jitter, keeps one core busy)
+    }
+
     private static final int WIDTH = 800;
     private static final int HEIGHT = 600;
     private static final String TITLE = "Jester Game";
 
     private static Scene currentScene;
 
+    // Loop settings (change them before launch)
+    private static int updateRate = 0;          // Fixed updates per second (0 = one update per frame)
+    private static int renderRate = 60;         // Frames per second (0 = as fast as possible)
+    private static int maxUpdatesPerFrame = 5;  // So a slow frame can't make the game fall further behind
+    private static Pacing pacing = Pacing.HYBRID;
+    private static final JesterFramePacer pacer = new JesterFramePacer();
+    private static final long MAX_FRAME_TIME = 250_000_000L; // Fixed updates treat longer frames (breakpoints, dragging) as this
+
+    private static float interpolationAlpha = 1f;
+    private static boolean renderThread;        // Draw on a separate thread (see setRenderThread)
+
+    private static JesterRenderPipeline pipeline; // null when drawing on the game loop thread
+
+    // Profiler zones of the loop's phases
+    private static final int ZONE_FRAME = Jester.profiler.zone("frame");
+    private static final int ZONE_UPDATE = Jester.profiler.zone("update");
+    private static final int ZONE_RENDER = Jester.profiler.zone("render");
+    private static final int ZONE_PRESENT = Jester.profiler.zone("present");
+    private static final int ZONE_WAIT = Jester.profiler.zone("wait");
+
     private JFrame frame;
     private boolean running = false;
     private Thread gameThread;
@@ -56,13 +83,9 @@ public class JesterMain extends Canvas implements Runnable {
     public void run() {
         createGameWindow();
 
-        long lastTime = System.nanoTime();
         long timer = System.currentTimeMillis();
         int frames = 0;
-
-        // Define target FPS and calculate target frame duration
-        final int TARGET_FPS = 60;
-        final long TARGET_FRAME_TIME = 1000000000 / TARGET_FPS; // in nanoseconds
+        int updates = 0;
 
         // Check if currentScene is initialized
         if (currentScene != null) {
@@ -72,50 +95,100 @@ public class JesterMain extends Canvas implements Runnable {
             return; // Exit if currentScene is null
         }
 
+        if (renderThread) {
+            pipeline = new JesterRenderPipeline(this);
+            pipeline.start();
+        }
+
+        long lastTime = System.nanoTime();
+        long accumulator = 0; // Time (ns) not yet simulated
+        pacer.start(lastTime);
+        Jester.timer.startLoop();
+
         while (running) {
+            Jester.profiler.begin(ZONE_FRAME);
+            JesterFlightEvents.Frame frameEvent = new JesterFlightEvents.Frame();
+            frameEvent.begin();
             long now = System.nanoTime();
-            // float dt = (now - lastTime) / 1_000_000_000f; // Convert to seconds
             long frameTime = now - lastTime; // Time taken for this frame
             lastTime = now;
 
-            // Update and render
-            //update(dt); // <--- NEW
-            update((float) frameTime / 1_000_000_000f); // Pass delta time in seconds
-            render();   // <--- same, Render the game
+            if (updateRate > 0) {
+                // Fixed updates: run as many as the elapsed time asks for
+                long step = 1_000_000_000L / updateRate;
+                accumulator += Math.min(frameTime, MAX_FRAME_TIME);
+                int count = 0;
+                while (accumulator >= step && count < maxUpdatesPerFrame) {
+                    update(step / 1_000_000_000f);
+                    accumulator -= step;
+                    count++;
+                }
+                // Too far behind: drop the backlog and slow down instead of freezing
+                if (accumulator >= step) {
+                    accumulator %= step;
+                }
+                updates += count;
+                frameEvent.updates = count;
+                interpolationAlpha = (float) accumulator / step;
+            } else {
+                update((float) frameTime / 1_000_000_000f); // Pass delta time in seconds
+                updates++;
+                frameEvent.updates = 1;
+                interpolationAlpha = 1f;
+            }
 
+            render(interpolationAlpha);
             frames++;
 
             // Update the title with FPS every second
             if (System.currentTimeMillis() - timer >= 1000) {
-                frame.setTitle(TITLE + " | FPS: " + frames);
+                String title = String.format("%s | FPS: %d | UPS: %d | jitter: %.2f ms",
+                        TITLE, frames, updates, pacer.getJitter() / 1_000_000.0);
+                if (pipeline != null) {
+                    title += " | dropped: " + pipeline.getDroppedFrames();
+                }
+                frame.setTitle(title);
                 frames = 0; // Reset frames count
+                updates = 0;
                 timer += 1000; // Move the timer forward
             }
 
-            // Calculate how long to sleep to maintain the target FPS
-            long sleepTime = (TARGET_FRAME_TIME - (System.nanoTime() - now)) / 1_000_000; // Convert to milliseconds
-            if (sleepTime > 0) {
-                try {
-                    Thread.sleep(sleepTime); // Sleep for the remaining time
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt(); // Restore interrupted status
-                }
-            }
+            frameEvent.interpolationAlpha = interpolationAlpha;
+            frameEvent.renderThread = (pipeline != null);
+            frameEvent.commit();
+            Jester.profiler.end(ZONE_FRAME);
+
+            // Wait for the next frame on the render cap's timeline
+            Jester.profiler.begin(ZONE_WAIT);
+            pacer.waitForNextFrame((renderRate > 0) ? 1_000_000_000L / renderRate : 0, pacing);
+            Jester.profiler.end(ZONE_WAIT);
+            Jester.profiler.endFrame();
+            Jester.timer.loopStep();
         }
 
+        if (pipeline != null) {
+            pipeline.stop();
+        }
         stop();
     }
 
     // Runs the current scene's update
     private void update(float dt) {
+        Jester.profiler.begin(ZONE_UPDATE);
         if (currentScene != null) {
             currentScene.update(dt); // Pass delta time
         }
         JesterKeyboard.endFrame();
+        Jester.profiler.end(ZONE_UPDATE);
     }
 
     // Renders the current scene
-    private void render() {
+    private void render(float alpha) {
+        if (pipeline != null) {
+            record(alpha);
+            return;
+        }
+
         BufferStrategy bs = getBufferStrategy();
         if (bs == null) {
             createBufferStrategy(3); // triple buffering
@@ -133,12 +206,32 @@ public class JesterMain extends Canvas implements Runnable {
 //        // Example usage
 //        Jester.graphics.clear(Color.BLACK, getWidth(), getHeight());
 
+        Jester.profiler.begin(ZONE_RENDER);
         if (currentScene != null) {
-            currentScene.render(); // Render the current scene using Jester.graphics
+            currentScene.render(alpha); // Render the current scene using Jester.graphics
         }
+        Jester.profiler.end(ZONE_RENDER);
 
+        Jester.profiler.begin(ZONE_PRESENT);
         g.dispose();
         bs.show();
+        Jester.profiler.end(ZONE_PRESENT);
+    }
+
+    // Records the current scene's draw calls and hands them to the render thread
+    private void record(float alpha) {
+        Jester.profiler.begin(ZONE_RENDER);
+        JesterRenderCommands commands = pipeline.beginFrame();
+        Jester.graphics.startRecording(commands);
+        try {
+            if (currentScene != null) {
+                currentScene.render(alpha);
+            }
+        } finally {
+            Jester.graphics.stopRecording();
+        }
+        pipeline.submit(commands);
+        Jester.profiler.end(ZONE_RENDER);
     }
 
     // Creates and configures the window
@@ -160,16 +253,129 @@ public class JesterMain extends Canvas implements Runnable {
 //        });
     }
 
-    // The dev calls this from their game to start everything
+    /**
+     * Starts the game with a scene. The loop steps Jester.timer once per frame, so
+     * scenes no longer need to call Jester.timer.step() (such calls are ignored).
+     * @param startScene The first scene
+     */
     public static void launch(Scene startScene) {
         currentScene = startScene;
         JesterMain game = new JesterMain();
         game.start();
     }
 
+    /**
+     * Sets how many times per second the scene is updated. Each update gets the same dt,
+     * which keeps game logic and physics stable. With 0, the scene is updated once per
+     * frame with the real frame time instead, as in earlier versions.
+     * @param updatesPerSecond The update rate (default 0, one update per frame)
+     */
+    public static void setUpdateRate(int updatesPerSecond) {
+        updateRate = Math.max(0, updatesPerSecond);
+    }
+
+    public static int getUpdateRate() { return updateRate; }
+
+    /**
+     * Sets the most frames drawn per second, independent of the update rate.
+     * Use 0 to draw as often as possible.
+     * @param framesPerSecond The render cap (default 60)
+     */
+    public static void setRenderRate(int framesPerSecond) {
+        renderRate = Math.max(0, framesPerSecond);
+    }
+
+    public static int getRenderRate() { return renderRate; }
+
+    /**
+     * Sets the most updates run before a frame is drawn. When updates fall this far
+     * behind, the game slows down instead of freezing to catch up.
+     * @param maxUpdates The update cap (default 5)
+     */
+    public static void setMaxUpdatesPerFrame(int maxUpdates) {
+        maxUpdatesPerFrame = Math.max(1, maxUpdates);
+    }
+
+    public static int getMaxUpdatesPerFrame() { return maxUpdatesPerFrame; }
+
+    /**
+     * Draws frames on a separate render thread (off by default; set it before launch).
+     * Scene.render still runs on the game loop thread, but its Jester.graphics calls are
+     * recorded and drawn by the render thread while the next frame is being updated, so
+     * a heavy frame no longer delays input and physics.
+     * Scenes must then draw only through Jester.graphics, not through getGraphics().
+     * @param enabled true to draw on a render thread
+     */
+    public static void setRenderThread(boolean enabled) {
+        renderThread = enabled;
+    }
+
+    public static boolean isRenderThread() { return renderThread; }
+
+    /**
+     * Gets how many recorded frames were thrown away because the render thread was still
+     * drawing an older one. A number that keeps growing means rendering is the bottleneck.
+     * @return The number of dropped frames since launch (always 0 without a render thread)
+     */
+    public static long getDroppedFrames() {
+        return (pipeline != null) ? pipeline.getDroppedFrames() : 0;
+    }
+
+    /**
+     * Sets how the loop waits between frames when the render rate is capped
+     * @param framePacing SLEEP, HYBRID (default) or SPIN
+     */
+    public static void setPacing(Pacing framePacing) {
+        pacing = framePacing;
+    }
+
+    public static Pacing getPacing() { return pacing; }
+
+    /**
+     * Gets the average time between frames over the last second
+     * @return The average frame time in milliseconds
+     */
+    public static double getAverageFrameTime() { return pacer.getAverageFrameTime() / 1_000_000.0; }
+
+    /**
+     * Gets how much the time between frames varied over the last second
+     * (the standard deviation). Lower is smoother.
+     * @return The frame time jitter in milliseconds
+     */
+    public static double getFrameTimeJitter() { return pacer.getJitter() / 1_000_000.0; }
+
+    /**
+     * Gets the longest time between two frames over the last second
+     * @return The longest frame time in milliseconds
+     */
+    public static double getMaxFrameTime() { return pacer.getMaxFrameTime() / 1_000_000.0; }
+
+    /**
+     * Gets how far the game is between the last update and the next one (0 to 1),
+     * the same value passed to {@link Scene#render(float)}
+     * @return The interpolation alpha
+     */
+    public static float getInterpolationAlpha() { return interpolationAlpha; }
+
+    /**
+     * Gets the scene that is currently running
+     * @return The current scene (null before launch)
+     */
+    public static Scene getCurrentScene() {
+        return currentScene;
+    }
+
     // Switch scenes
     public static void setScene(Scene newScene) {
+        JesterFlightEvents.SceneChange event = new JesterFlightEvents.SceneChange();
+        event.begin();
+        Scene oldScene = currentScene;
         currentScene = newScene;
         currentScene.init();
+        if (event.shouldCommit()) {
+            event.from = (oldScene != null) ? oldScene.getClass().getName() : null;
+            event.to = newScene.getClass().getName();
+            event.commit();
+        }
     }
 }
@@ -0,0 +1,30 @@
+package jester;
+
+/**
+ * Describes how two touching colliders overlap: the direction to push them apart,
+ * how deep they overlap, and up to two contact points.
+ * The physics world keeps a pool of these and refills them every step.
+ */
+final class JesterManifold {
+    int first, second;         // Collider indices; the normal points from first to second
+    float normalX, normalY;
+    float depth;
+    int pointCount;
+    final float[] pointX = new float[2];
+    final float[] pointY = new float[2];
+
+    void set(int first, int second, float normalX, float normalY, float depth) {
+        this.first = first;
+        this.second = second;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.depth = depth;
+        this.pointCount = 0;
+    }
+
+    void addPoint(float x, float y) {
+        pointX[pointCount] = x;
+        pointY[pointCount] = y;
+        pointCount++;
+    }
+}
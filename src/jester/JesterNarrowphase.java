@@ -0,0 +1,154 @@
+package jester;
+
+/**
+ * Exact collision tests between collider shapes (box-box, circle-circle and circle-box).
+ * The broadphase and the bounding box test only say two colliders might touch;
+ * these tests decide whether they really do and build the contact manifold.
+ */
+final class JesterNarrowphase {
+    private JesterNarrowphase() {
+    }
+
+    /**
+     * Checks if two colliders whose bounding boxes overlap really touch.
+     * Safe to call from several threads.
+     */
+    static boolean overlaps(JesterColliderStore s, int i, int j) {
+        boolean circleA = s.type[i] == JesterColliderStore.TYPE_CIRCLE;
+        boolean circleB = s.type[j] == JesterColliderStore.TYPE_CIRCLE;
+        if (!circleA && !circleB) return true; // Two boxes: the bounding boxes are the shapes
+
+        if (circleA && circleB) {
+            float dx = (s.x[j] + s.radius[j]) - (s.x[i] + s.radius[i]);
+            float dy = (s.y[j] + s.radius[j]) - (s.y[i] + s.radius[i]);
+            float reach = s.radius[i] + s.radius[j];
+            return dx * dx + dy * dy <= reach * reach;
+        }
+
+        int circle = circleA ? i : j;
+        int box = circleA ? j : i;
+        float r = s.radius[circle];
+        float cx = s.x[circle] + r;
+        float cy = s.y[circle] + r;
+        float dx = clamp(cx, s.x[box], s.x[box] + s.width[box]) - cx;
+        float dy = clamp(cy, s.y[box], s.y[box] + s.height[box]) - cy;
+        return dx * dx + dy * dy <= r * r;
+    }
+
+    /**
+     * Tests two colliders and fills in the manifold if they touch.
+     * The manifold normal points from collider i towards collider j.
+     * @return true if the colliders touch
+     */
+    static boolean collide(JesterColliderStore s, int i, int j, JesterManifold m) {
+        boolean circleA = s.type[i] == JesterColliderStore.TYPE_CIRCLE;
+        boolean circleB = s.type[j] == JesterColliderStore.TYPE_CIRCLE;
+
+        if (!circleA && !circleB) return boxBox(s, i, j, m);
+        if (circleA && circleB) return circleCircle(s, i, j, m);
+
+        if (circleA) return circleBox(s, i, j, m);
+
+        // Box first: test as circle-box, then turn the normal around
+        if (!circleBox(s, j, i, m)) return false;
+        m.first = i;
+        m.second = j;
+        m.normalX = -m.normalX;
+        m.normalY = -m.normalY;
+        return true;
+    }
+
+    private static boolean boxBox(JesterColliderStore s, int i, int j, JesterManifold m) {
+        float ax0 = s.x[i], ay0 = s.y[i], ax1 = ax0 + s.width[i], ay1 = ay0 + s.height[i];
+        float bx0 = s.x[j], by0 = s.y[j], bx1 = bx0 + s.width[j], by1 = by0 + s.height[j];
+        if (ax1 < bx0 || bx1 < ax0 || ay1 < by0 || by1 < ay0) return false;
+
+        float left = Math.max(ax0, bx0), right = Math.min(ax1, bx1);
+        float top = Math.max(ay0, by0), bottom = Math.min(ay1, by1);
+        float overlapX = right - left;
+        float overlapY = bottom - top;
+
+        // Push apart along the axis with the smallest overlap
+        if (overlapX < overlapY) {
+            float nx = (bx0 + bx1 >= ax0 + ax1) ? 1 : -1;
+            float edgeX = (left + right) * 0.5f;
+            m.set(i, j, nx, 0, overlapX);
+            m.addPoint(edgeX, top);
+            m.addPoint(edgeX, bottom);
+        } else {
+            float ny = (by0 + by1 >= ay0 + ay1) ? 1 : -1;
+            float edgeY = (top + bottom) * 0.5f;
+            m.set(i, j, 0, ny, overlapY);
+            m.addPoint(left, edgeY);
+            m.addPoint(right, edgeY);
+        }
+        return true;
+    }
+
+    private static boolean circleCircle(JesterColliderStore s, int i, int j, JesterManifold m) {
+        float ra = s.radius[i], rb = s.radius[j];
+        float ax = s.x[i] + ra, ay = s.y[i] + ra;
+        float dx = (s.x[j] + rb) - ax;
+        float dy = (s.y[j] + rb) - ay;
+        float reach = ra + rb;
+        float distSq = dx * dx + dy * dy;
+        if (distSq > reach * reach) return false;
+
+        float dist = (float) Math.sqrt(distSq);
+        float nx = 0, ny = 1; // Same center: push straight apart vertically
+        if (dist > 0) {
+            nx = dx / dist;
+            ny = dy / dist;
+        }
+        float depth = reach - dist;
+        m.set(i, j, nx, ny, depth);
+        m.addPoint(ax + nx * (ra - depth * 0.5f), ay + ny * (ra - depth * 0.5f));
+        return true;
+    }
+
+    // Normal points from the circle to the box
+    private static boolean circleBox(JesterColliderStore s, int circle, int box, JesterManifold m) {
+        float r = s.radius[circle];
+        float cx = s.x[circle] + r;
+        float cy = s.y[circle] + r;
+        float x0 = s.x[box], y0 = s.y[box];
+        float x1 = x0 + s.width[box], y1 = y0 + s.height[box];
+
+        float closestX = clamp(cx, x0, x1);
+        float closestY = clamp(cy, y0, y1);
+        float dx = closestX - cx;
+        float dy = closestY - cy;
+        float distSq = dx * dx + dy * dy;
+        if (distSq > r * r) return false;
+
+        if (distSq > 0) {
+            float dist = (float) Math.sqrt(distSq);
+            m.set(circle, box, dx / dist, dy / dist, r - dist);
+            m.addPoint(closestX, closestY);
+            return true;
+        }
+
+        // The center is inside (or on the edge of) the box: leave through the nearest side
+        float toLeft = cx - x0, toRight = x1 - cx;
+        float toTop = cy - y0, toBottom = y1 - cy;
+        float nearest = Math.min(Math.min(toLeft, toRight), Math.min(toTop, toBottom));
+        if (nearest == toLeft) {
+            m.set(circle, box, 1, 0, r + toLeft);
+            m.addPoint(x0, cy);
+        } else if (nearest == toRight) {
+            m.set(circle, box, -1, 0, r + toRight);
+            m.addPoint(x1, cy);
+        } else if (nearest == toTop) {
+            m.set(circle, box, 0, 1, r + toTop);
+            m.addPoint(cx, y0);
+        } else {
+            m.set(circle, box, 0, -1, r + toBottom);
+            m.addPoint(cx, y1);
+        }
+        return true;
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(value, max));
+    }
+}
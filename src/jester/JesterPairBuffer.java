@@ -0,0 +1,36 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of collider index pairs produced by a broadphase.
+ * The pairs are kept in two parallel int arrays so refilling the buffer
+ * every physics step does not allocate once it has grown large enough.
+ */
+class JesterPairBuffer {
+    int[] first = new int[64];
+    int[] second = new int[64];
+    int size;
+
+    /**
+     * Removes all pairs (keeps the backing arrays)
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a pair of collider indices
+     * @param a Index of the first collider
+     * @param b Index of the second collider
+     */
+    void add(int a, int b) {
+        if (size == first.length) {
+            first = Arrays.copyOf(first, size * 2);
+            second = Arrays.copyOf(second, size * 2);
+        }
+        first[size] = a;
+        second[size] = b;
+        size++;
+    }
+}
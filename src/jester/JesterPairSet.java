@@ -0,0 +1,61 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash set of long pair keys (see {@link JesterContactCache#key}).
+ * Clearing keeps the backing arrays, so refilling it every step does not allocate
+ * once it has grown large enough.
+ */
+final class JesterPairSet {
+    private long[] keys = new long[64];
+    private boolean[] used = new boolean[64];
+    private int count;
+
+    /**
+     * Adds a key
+     * @return true if the key was not in the set yet
+     */
+    boolean add(long key) {
+        if ((count + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = JesterContactCache.hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) return false;
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        count++;
+        return true;
+    }
+
+    boolean contains(long key) {
+        int mask = keys.length - 1;
+        int slot = JesterContactCache.hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    void clear() {
+        if (count == 0) return;
+        Arrays.fill(used, false);
+        count = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        count = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) add(oldKeys[i]);
+        }
+    }
+}
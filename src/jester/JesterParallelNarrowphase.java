@@ -0,0 +1,154 @@
+package jester;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the narrowphase (collision filter + overlap test) of a physics step on several cores.
+ *
+ * The work is cut into a fixed number of consecutive chunks. Every chunk writes the
+ * contacts it finds into its own buffer, and the buffers are joined back together in
+ * chunk order. That gives exactly the same contact list, in the same order, as testing
+ * the pairs one after another. The sequential mode also finds every contact before
+ * resolving any, so resolving the joined list afterwards is bit-identical to it no
+ * matter how the threads were scheduled.
+ */
+class JesterParallelNarrowphase {
+    // Below this many pair tests the threads cost more than they save
+    private static final int MIN_PARALLEL_TESTS = 2048;
+
+    private final ForkJoinPool pool;
+    private final Chunk[] chunks;
+    private final Root root = new Root();
+
+    // Input of the step currently running
+    private JesterPhysics world;
+    private JesterPairBuffer candidates; // null means "every pair" (brute force)
+
+    /**
+     * Creates a parallel narrowphase running on the given pool
+     * @param pool The pool that runs the chunks
+     */
+    JesterParallelNarrowphase(ForkJoinPool pool) {
+        this.pool = pool;
+        this.chunks = new Chunk[pool.getParallelism() * 4];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new Chunk();
+        }
+    }
+
+    /**
+     * Tests the given candidate pairs and appends the touching ones to contacts
+     * @return The number of pair tests performed
+     */
+    int detect(JesterPhysics world, JesterPairBuffer candidates, JesterPairBuffer contacts) {
+        int total = candidates.size;
+        int perChunk = (total + chunks.length - 1) / chunks.length;
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c].from = Math.min(total, c * perChunk);
+            chunks[c].to = Math.min(total, (c + 1) * perChunk);
+        }
+        return run(world, candidates, total, contacts);
+    }
+
+    /**
+     * Tests every pair of colliders and appends the touching ones to contacts
+     * @return The number of pair tests performed
+     */
+    int detectAllPairs(JesterPhysics world, int colliderCount, JesterPairBuffer contacts) {
+        // Row i holds the pairs (i, j > i); rows get shorter, so split by pair count, not row count
+        long total = (long) colliderCount * (colliderCount - 1) / 2;
+        long perChunk = (total + chunks.length - 1) / chunks.length;
+        int row = 0;
+        long done = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c].from = row;
+            long target = Math.min(total, (c + 1) * perChunk);
+            while (row < colliderCount && done < target) {
+                done += colliderCount - row - 1;
+                row++;
+            }
+            chunks[c].to = row;
+        }
+        return run(world, null, total, contacts);
+    }
+
+    private int run(JesterPhysics world, JesterPairBuffer candidates, long total, JesterPairBuffer contacts) {
+        this.world = world;
+        this.candidates = candidates;
+
+        if (total < MIN_PARALLEL_TESTS) {
+            for (Chunk chunk : chunks) {
+                chunk.compute();
+            }
+        } else {
+            root.reinitialize();
+            pool.invoke(root);
+        }
+
+        // Join the per-chunk buffers in chunk order (the sequential order)
+        int tests = 0;
+        for (Chunk chunk : chunks) {
+            tests += chunk.tests;
+            for (int k = 0; k < chunk.contacts.size; k++) {
+                contacts.add(chunk.contacts.first[k], chunk.contacts.second[k]);
+            }
+        }
+
+        this.world = null;
+        this.candidates = null;
+        return tests;
+    }
+
+    private final class Root extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            for (Chunk chunk : chunks) {
+                chunk.reinitialize();
+            }
+            invokeAll(chunks);
+        }
+    }
+
+    private final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final JesterPairBuffer contacts = new JesterPairBuffer();
+        int from, to;
+        int tests;
+
+        @Override
+        protected void compute() {
+            contacts.clear();
+            tests = 0;
+
+            if (candidates != null) {
+                int[] first = candidates.first;
+                int[] second = candidates.second;
+                for (int k = from; k < to; k++) {
+                    test(first[k], second[k]);
+                }
+            } else {
+                int count = world.getStore().size;
+                for (int i = from; i < to; i++) {
+                    for (int j = i + 1; j < count; j++) {
+                        test(i, j);
+                    }
+                }
+            }
+        }
+
+        private void test(int i, int j) {
+            if (world.getStore().isResting(i, j)) {
+                if (world.wasTouching(i, j)) contacts.add(i, j);
+                return;
+            }
+            tests++;
+            if (world.isTouching(i, j)) {
+                contacts.add(i, j);
+            }
+        }
+    }
+}
@@ -1,45 +1,751 @@
 package jester;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A simple physics world that manages colliders and basic physics simulation.
  * Designed to be easy to use for beginners while remaining extensible for advanced users.
  */
 public class JesterPhysics {
+    /** The strategies available for finding which colliders might be touching */
+    public enum Broadphase {
+        BRUTE_FORCE,  // Tests every pair of colliders (fine for small worlds)
+        SPATIAL_HASH, // Only tests colliders that share a grid cell (many small colliders)
+        SWEEP_AND_PRUNE, // Keeps colliders sorted along X between steps (mostly slow-moving colliders)
+        AABB_TREE     // Keeps STATIC/KINEMATIC colliders in a tree that RIGID colliders query (large static levels)
+    }
+
+    /** The ways overlapping colliders can be pushed apart */
+    public enum Solver {
+        POSITIONAL, // Moves overlapping bodies apart directly, one pair at a time (simple and snappy)
+        IMPULSE     // Changes velocities over several passes with warm starting (stable stacks, friction)
+    }
+
     private float gravityY;
-    private List<JesterCollider> colliders;
+    private final JesterColliderStore store = new JesterColliderStore(); // All colliders, as parallel arrays
     private Map<String, JesterCollisionClass> collisionClasses = new HashMap<>();
+
+    // Every collision class name in use gets a small id; colliders store the matching bits
+    private static final int MAX_COLLISION_CLASSES = 32;
+    private final Map<String, Integer> collisionClassIds = new HashMap<>();
+    private final int[] collisionClassMasks = new int[MAX_COLLISION_CLASSES];
     private boolean debugDraw;
     private boolean isPaused; // Add a flag to track if physics is paused
 
+    // Fixed timestep
+    private float stepRate = 0f;       // Physics steps per second (0 = use the frame's dt)
+    private int maxSubsteps = 8;       // Most steps run in one update, so a long frame can't spiral
+    private float accumulator;         // Frame time not yet simulated
+    private float stepDt = 1f / 60f;   // Length of the step being simulated
+    private float interpolationAlpha = 1f;
+    private int substepCount;
+
+    // Sleeping
+    private boolean sleepingEnabled = false;
+    private float sleepVelocity = 5f;   // Bodies slower than this (pixels per second) count as still
+    private float timeToSleep = 0.5f;   // How long an island must be still before it sleeps
+    private final JesterIslands islands = new JesterIslands();
+    private final JesterPairSet lastContacts = new JesterPairSet(); // Handle pairs touching in the last step
+
+    // Waking: each collider's partners in the contact list, built when first needed after a step
+    private int[] contactStart = new int[65];
+    private int[] contactPartners = new int[64];
+    private int contactListCount = -1;          // Colliders covered by the lists, -1 when out of date
+    private int[] wakeStack = new int[64];
+    private int wakeCount;
+    private float wakeX0, wakeY0, wakeX1, wakeY1;
+    private final JesterAABBTree.QueryCallback wakeFinder = this::wakeFound;
+    private boolean stepping; // Moves made during a step come from the solver, not from game code
+
+    private final List<JesterTileLayer> tileLayers = new ArrayList<>();
+
+    private Broadphase broadphase = Broadphase.BRUTE_FORCE;
+    private final JesterSpatialHash spatialHash = new JesterSpatialHash(64f);
+    private final JesterSweepAndPrune sweepAndPrune = new JesterSweepAndPrune();
+    private final JesterTreeBroadphase aabbTree = new JesterTreeBroadphase(); // Also serves queries and bullets
+    private final JesterPhysicsQueries queries = new JesterPhysicsQueries(store, aabbTree);
+    private final JesterPairBuffer pairs = new JesterPairBuffer();
+    private final JesterPairBuffer contacts = new JesterPairBuffer();
+    private JesterManifold[] manifolds = new JesterManifold[0]; // Pool, refilled every step
+    private int manifoldCount;
+    private JesterParallelNarrowphase parallel; // null when running on one thread
+
+    private Solver solver = Solver.POSITIONAL;
+    private int solverIterations = 8;
+    private float friction = 0.4f;
+    private final JesterImpulseSolver impulseSolver = new JesterImpulseSolver();
+
+    // Contact events
+    private boolean contactEventsEnabled = false;
+    private final JesterContactTracker contactTracker = new JesterContactTracker();
+
+    // Deterministic mode
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private boolean deterministic;
+    private boolean fixedPointIntegration;
+    private long stateHash;
+    private long[] contactKeys = new long[64]; // Sort keys for the contacts
+
+    // Removal requested while the world is updating waits until the update is done
+    private boolean updating;
+    private int[] pendingRemovals = new int[16]; // Handles
+    private int pendingRemovalCount;
+
+    private static final int PROFILER_ZONE = Jester.profiler.zone("physics");
+
+    // Statistics from the last step
+    private int pairTestCount;
+    private long lastStepNanos;
+
     /**
      * Creates a new physics world
      * @param gravityY The vertical gravity (positive is downward)
      */
     public JesterPhysics(float gravityY) {
         this.gravityY = gravityY;
-        this.colliders = new ArrayList<>();
         this.debugDraw = true;
         this.isPaused = false; // Initialize as not paused
     }
 
     /**
-     * Updates all colliders and checks for collisions
+     * Advances the simulation by the frame time.
+     * By default this is one step with the frame's delta time. With a fixed step rate
+     * (see {@link #setStepRate(float)}), the frame time is collected and simulated in
+     * equal steps, and the leftover is available as {@link #getInterpolationAlpha()}.
      * @param dt Delta time since last update
      */
     public void update(float dt) {
         if (isPaused) return; // Skip updates if paused
+        Jester.profiler.begin(PROFILER_ZONE);
+        JesterFlightEvents.PhysicsUpdate event = new JesterFlightEvents.PhysicsUpdate();
+        event.begin();
+        long start = System.nanoTime();
+        pairTestCount = 0;
+        substepCount = 0;
+        updating = true;
+
+        if (stepRate <= 0) {
+            // Variable timestep: one step with whatever time the frame took
+            step(dt);
+            substepCount = 1;
+            interpolationAlpha = 1f;
+        } else {
+            float fixedDt = 1f / stepRate;
+            accumulator += dt;
+            while (accumulator >= fixedDt && substepCount < maxSubsteps) {
+                step(fixedDt);
+                accumulator -= fixedDt;
+                substepCount++;
+            }
+            // Too far behind: drop the backlog instead of trying to catch up forever
+            if (accumulator >= fixedDt) {
+                accumulator %= fixedDt;
+            }
+            interpolationAlpha = accumulator / fixedDt;
+        }
+
+        finishUpdate(start, event);
+    }
+
+    /**
+     * Runs exactly one fixed step, whatever time has passed. Use this instead of
+     * {@link #update(float)} for replays and lockstep networking, where every peer
+     * must run the same steps.
+     */
+    public void stepFixed() {
+        if (isPaused) return;
+        Jester.profiler.begin(PROFILER_ZONE);
+        JesterFlightEvents.PhysicsUpdate event = new JesterFlightEvents.PhysicsUpdate();
+        event.begin();
+        long start = System.nanoTime();
+        pairTestCount = 0;
+        updating = true;
+        step(1f / ((stepRate > 0) ? stepRate : 60f));
+        substepCount = 1;
+        finishUpdate(start, event);
+    }
+
+    // Reports contact events and applies removals that were requested during the steps
+    private void finishUpdate(long start, JesterFlightEvents.PhysicsUpdate event) {
+        if (contactEventsEnabled) {
+            contactTracker.finishUpdate(store);
+            contactTracker.dispatchSignals();
+        }
+
+        updating = false;
+        flushRemovals();
+
+        lastStepNanos = System.nanoTime() - start;
+        if (event.shouldCommit()) {
+            event.colliders = store.size;
+            event.steps = substepCount;
+            event.pairTests = pairTestCount;
+            event.contacts = contacts.size;
+            event.commit();
+        }
+        Jester.profiler.end(PROFILER_ZONE);
+    }
+
+    /**
+     * Runs one physics step
+     */
+    private void step(float dt) {
+        stepping = true;
+        stepDt = dt;
+        store.savePreviousPositions();
+
+        if (solver == Solver.IMPULSE) {
+            // Gravity first, then fix the velocities at the contacts, then move
+            integrateVelocities(dt);
+            solveContacts(dt);
+            integratePositions(dt);
+            sweepBullets();
+            resolveTiles();
+        } else {
+            // Update all colliders (one linear pass over the collider arrays)
+            if (fixedPointIntegration) {
+                store.integrateVelocitiesFixed(gravityY, dt);
+                store.integratePositionsFixed(dt);
+            } else {
+                store.integrate(gravityY, dt);
+            }
+
+            // Stop fast bullets at the first wall they would have passed through
+            sweepBullets();
+
+            // Check collisions
+            checkCollisions();
+
+            // Keep bodies out of tiles last, so nothing is left inside a wall
+            resolveTiles();
+        }
+
+        if (sleepingEnabled) {
+            islands.update(store, contacts, dt, sleepVelocity, timeToSleep);
+            rememberContacts();
+        }
+        if (contactEventsEnabled) {
+            contactTracker.addStep(store, contacts);
+        }
+        if (deterministic) {
+            stateHash = computeStateHash();
+        }
+        store.version++; // The solver moved bodies after the broadphase ran
+        contactListCount = -1;
+        stepping = false;
+    }
+
+    // Resting pairs are not tested again, so the next step needs to know which ones touch
+    private void rememberContacts() {
+        lastContacts.clear();
+        for (int k = 0; k < contacts.size; k++) {
+            lastContacts.add(JesterContactCache.key(store.handle[contacts.first[k]], store.handle[contacts.second[k]]));
+        }
+    }
+
+    private void integrateVelocities(float dt) {
+        if (fixedPointIntegration) {
+            store.integrateVelocitiesFixed(gravityY, dt);
+        } else {
+            store.integrateVelocities(gravityY, dt);
+        }
+    }
+
+    private void integratePositions(float dt) {
+        if (fixedPointIntegration) {
+            store.integratePositionsFixed(dt);
+        } else {
+            store.integratePositions(dt);
+        }
+    }
+
+    /**
+     * Turns deterministic mode on or off (off by default).
+     * Contacts are then resolved in the order of the collider handles, so the result no
+     * longer depends on the broadphase, the thread count or where colliders sit in the
+     * world's arrays, and a hash of the world is computed after every step
+     * (see {@link #getStateHash()}). Run the world with {@link #stepFixed()} or a fixed
+     * step rate to get the same steps on every machine.
+     * @param enabled true to make every step reproducible
+     */
+    public void setDeterministic(boolean enabled) {
+        this.deterministic = enabled;
+    }
+
+    public boolean isDeterministic() { return deterministic; }
+
+    /**
+     * Moves bodies with 16.16 fixed-point math instead of floats (off by default).
+     * Positions and velocities are rounded to 1/65536 every step, which makes the
+     * movement easy to reproduce in other programs (e.g. a server in another language).
+     * Positions must stay within about -32000 to 32000.
+     * @param enabled true to use fixed-point integration
+     */
+    public void setFixedPointIntegration(boolean enabled) {
+        this.fixedPointIntegration = enabled;
+    }
+
+    public boolean isFixedPointIntegration() { return fixedPointIntegration; }
+
+    /**
+     * Gets the hash of the world computed after the last step in deterministic mode.
+     * Two worlds that ran the same steps have the same hash, so replays and lockstep
+     * peers can compare this number instead of the whole world.
+     * @return The state hash (0 before the first deterministic step)
+     */
+    public long getStateHash() { return stateHash; }
+
+    /**
+     * Computes a hash of every collider's handle, body type, position, velocity and sleep state
+     * (64-bit FNV-1a over the raw float bits)
+     * @return The state hash
+     */
+    public long computeStateHash() {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < store.size; i++) {
+            hash = fnv(hash, store.handle[i]);
+            hash = fnv(hash, store.bodyType[i] | (store.awake[i] ? 0x100 : 0));
+            hash = fnv(hash, Float.floatToRawIntBits(store.x[i]));
+            hash = fnv(hash, Float.floatToRawIntBits(store.y[i]));
+            hash = fnv(hash, Float.floatToRawIntBits(store.velocityX[i]));
+            hash = fnv(hash, Float.floatToRawIntBits(store.velocityY[i]));
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, int value) {
+        for (int b = 0; b < 4; b++) {
+            hash ^= value & 0xFF;
+            hash *= FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+    /**
+     * Sorts the contacts by the handles of their colliders
+     */
+    private void sortContacts() {
+        int count = contacts.size;
+        if (contactKeys.length < count) {
+            contactKeys = new long[Math.max(count, contactKeys.length * 2)];
+        }
+        for (int k = 0; k < count; k++) {
+            contactKeys[k] = JesterContactCache.key(store.handle[contacts.first[k]], store.handle[contacts.second[k]]);
+        }
+        Arrays.sort(contactKeys, 0, count);
+        for (int k = 0; k < count; k++) {
+            int a = store.indexOf((int) (contactKeys[k] >>> 32));
+            int b = store.indexOf((int) contactKeys[k]);
+            contacts.first[k] = Math.min(a, b);
+            contacts.second[k] = Math.max(a, b);
+        }
+    }
+
+    /**
+     * Turns contact events on or off (off by default).
+     * After each update, colliders that started, kept or stopped touching are reported
+     * as BEGIN, STAY and END events. Removing a touching collider ends its contacts
+     * with END events in the next update. Read them with {@link #getContactEventCount()} and
+     * {@link #getContactEvent(int)}, or give colliders an owner with
+     * {@link JesterCollider#setOwner(GameObject)} to get them as signals.
+     * @param enabled true to report contact events
+     */
+    public void setContactEventsEnabled(boolean enabled) {
+        this.contactEventsEnabled = enabled;
+        if (!enabled) {
+            contactTracker.reset();
+        }
+    }
+
+    public boolean isContactEventsEnabled() { return contactEventsEnabled; }
+
+    /**
+     * Gets how many contact events the last update produced
+     * @return The number of events
+     */
+    public int getContactEventCount() { return contactTracker.getEventCount(); }
+
+    /**
+     * Gets a contact event of the last update. The event object is reused by later
+     * updates, so don't keep it around.
+     * @param index The event number, from 0 to getContactEventCount() - 1
+     * @return The event
+     */
+    public JesterContactEvent getContactEvent(int index) { return contactTracker.getEvent(index); }
+
+    /**
+     * Pushes every awake RIGID body out of the solid tiles of each tile layer
+     */
+    private void resolveTiles() {
+        for (int t = 0; t < tileLayers.size(); t++) {
+            JesterTileLayer layer = tileLayers.get(t);
+            int id = layer.getCollisionClassId();
+            int category = 1 << id;
+            int mask = collisionClassMasks[id];
+            boolean moved = false;
+            for (int i = 0; i < store.size; i++) {
+                if (store.bodyType[i] != JesterColliderStore.BODY_RIGID || !store.awake[i]) continue;
+                if ((store.category[i] & mask) == 0 || (category & store.mask[i]) == 0) continue;
+                moved |= layer.resolve(store, i);
+            }
+            if (moved) store.version++;
+        }
+    }
+
+    /**
+     * Creates a tile layer that RIGID bodies collide with. All tiles start empty.
+     * @param x X position of the layer's top-left corner
+     * @param y Y position of the layer's top-left corner
+     * @param columns Number of columns
+     * @param rows Number of rows
+     * @param tileSize Width and height of one tile
+     * @return The created layer
+     */
+    public JesterTileLayer newTileLayer(float x, float y, int columns, int rows, float tileSize) {
+        JesterTileLayer layer = new JesterTileLayer(this, x, y, columns, rows, tileSize);
+        layer.setCollisionClassId(internCollisionClass("Default"));
+        tileLayers.add(layer);
+        return layer;
+    }
+
+    /**
+     * Removes a tile layer from the world (bodies resting on it wake up)
+     * @param layer The layer to remove
+     */
+    public void removeTileLayer(JesterTileLayer layer) {
+        if (tileLayers.remove(layer)) {
+            for (int i = 0; i < store.size; i++) {
+                store.wake(i);
+            }
+        }
+    }
+
+    /**
+     * Gets the id of a collision class for a tile layer
+     */
+    int tileLayerClassId(String name) {
+        return internCollisionClass(name);
+    }
+
+    /**
+     * Called when game code moves a collider (or creates one). Sleeping bodies that touched
+     * it before or touch it now wake up, so nothing is left hanging in the air when a
+     * platform is moved away. Moves made by the solver during a step are ignored.
+     */
+    void colliderMoved(int index, float oldX, float oldY) {
+        if (stepping || !sleepingEnabled || islands.getSleepingCount() == 0) return;
+        float w = store.width[index];
+        float h = store.height[index];
+        wakeCount = 0;
+        pushWoken(index);
+        findSleepers(oldX, oldY, oldX + w, oldY + h);
+        findSleepers(store.x[index], store.y[index], store.x[index] + w, store.y[index] + h);
+        wakeConnected();
+    }
 
-        // Update all colliders
-        for (JesterCollider collider : colliders) {
-            collider.update(dt);
+    /**
+     * Wakes every body that overlaps or touches a rectangle, and the sleeping bodies
+     * resting on them
+     */
+    void wakeArea(float x0, float y0, float x1, float y1) {
+        if (islands.getSleepingCount() == 0) return;
+        wakeCount = 0;
+        findSleepers(x0, y0, x1, y1);
+        wakeConnected();
+    }
+
+    // Wakes the sleeping bodies touching a rectangle, found through the AABB trees
+    private void findSleepers(float x0, float y0, float x1, float y1) {
+        aabbTree.update(store);
+        wakeX0 = x0;
+        wakeY0 = y0;
+        wakeX1 = x1;
+        wakeY1 = y1;
+        aabbTree.query(x0, y0, x1, y1, wakeFinder);
+    }
+
+    private boolean wakeFound(int proxy, int i) {
+        if (!store.awake[i] && store.x[i] <= wakeX1 && store.x[i] + store.width[i] >= wakeX0
+                && store.y[i] <= wakeY1 && store.y[i] + store.height[i] >= wakeY0) {
+            store.wake(i);
+            pushWoken(i);
         }
+        return true;
+    }
+
+    /**
+     * Wakes every sleeping body that touched a woken one in the last step, and so on,
+     * so a woken body wakes the whole stack resting on it. Without this, a box sitting on a
+     * body that starts falling would stay asleep in the air, since the two are already
+     * apart when the next step looks for contacts. Only the woken bodies' own contacts
+     * are walked, so bodies elsewhere in the world cost nothing.
+     */
+    private void wakeConnected() {
+        if (wakeCount == 0) return;
+        if (contactListCount < 0) buildContactLists();
 
-        // Check collisions
-        checkCollisions();
+        while (wakeCount > 0) {
+            int i = wakeStack[--wakeCount];
+            if (i >= contactListCount) continue; // Added after the lists were built: no contacts
+            for (int k = contactStart[i]; k < contactStart[i + 1]; k++) {
+                int other = contactPartners[k];
+                if (!store.awake[other] && store.bodyType[other] != JesterColliderStore.BODY_STATIC) {
+                    store.wake(other);
+                    pushWoken(other);
+                }
+            }
+        }
+    }
+
+    private void pushWoken(int i) {
+        if (wakeCount == wakeStack.length) wakeStack = Arrays.copyOf(wakeStack, wakeCount * 2);
+        wakeStack[wakeCount++] = i;
+    }
+
+    // Groups the contact list by collider (counting sort), so each collider's partners are one range
+    private void buildContactLists() {
+        int count = store.size;
+        if (contactStart.length < count + 1) contactStart = new int[count + 1 + count / 2];
+        if (contactPartners.length < contacts.size * 2) contactPartners = new int[contacts.size * 3];
+        Arrays.fill(contactStart, 0, count + 1, 0);
+
+        for (int k = 0; k < contacts.size; k++) {
+            contactStart[contacts.first[k] + 1]++;
+            contactStart[contacts.second[k] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            contactStart[i + 1] += contactStart[i];
+        }
+        // Fill each range using its start as a cursor, then shift the starts back
+        for (int k = 0; k < contacts.size; k++) {
+            int i = contacts.first[k];
+            int j = contacts.second[k];
+            contactPartners[contactStart[i]++] = j;
+            contactPartners[contactStart[j]++] = i;
+        }
+        for (int i = count; i > 0; i--) {
+            contactStart[i] = contactStart[i - 1];
+        }
+        contactStart[0] = 0;
+        contactListCount = count;
     }
 
+    /**
+     * Chooses how overlapping colliders are pushed apart.
+     * POSITIONAL is the default. IMPULSE keeps stacks of boxes steady, adds friction,
+     * and warm-starts each touching pair from the push it needed last step.
+     * @param solver The solver to use
+     */
+    public void setSolver(Solver solver) {
+        this.solver = solver;
+    }
+
+    public Solver getSolver() { return solver; }
+
+    /**
+     * Sets how many passes the IMPULSE solver makes over all contacts per step
+     * @param iterations The number of passes (default 8)
+     */
+    public void setSolverIterations(int iterations) {
+        this.solverIterations = Math.max(1, iterations);
+    }
+
+    public int getSolverIterations() { return solverIterations; }
+
+    /**
+     * Sets the friction between touching bodies for the IMPULSE solver
+     * @param friction The friction coefficient (0 = ice, default 0.4)
+     */
+    public void setFriction(float friction) {
+        this.friction = Math.max(0, friction);
+    }
+
+    public float getFriction() { return friction; }
+
+    /**
+     * Turns body sleeping on or off (off by default).
+     * Resting bodies that fall asleep are skipped by integration, by the collision tests
+     * against other sleeping or STATIC bodies, and by resolution, which saves a lot of work
+     * in worlds with many bodies lying still. Turning it off wakes every body.
+     * @param enabled true to let resting bodies sleep
+     */
+    public void setSleepingEnabled(boolean enabled) {
+        this.sleepingEnabled = enabled;
+        if (!enabled) {
+            for (int i = 0; i < store.size; i++) {
+                store.wake(i);
+            }
+        }
+    }
+
+    public boolean isSleepingEnabled() { return sleepingEnabled; }
+
+    /**
+     * Sets when resting bodies fall asleep
+     * @param velocity Bodies slower than this (pixels per second) count as resting (default 5)
+     * @param time How many seconds a group of touching bodies must rest before sleeping (default 0.5)
+     */
+    public void setSleepThresholds(float velocity, float time) {
+        this.sleepVelocity = velocity;
+        this.timeToSleep = time;
+    }
+
+    /**
+     * Gets how many RIGID and KINEMATIC bodies were awake after the last step
+     * @return The number of awake bodies
+     */
+    public int getAwakeBodyCount() {
+        return sleepingEnabled ? islands.getAwakeCount() : countMovingBodies();
+    }
+
+    /**
+     * Gets how many RIGID and KINEMATIC bodies were sleeping after the last step
+     * @return The number of sleeping bodies
+     */
+    public int getSleepingBodyCount() {
+        return sleepingEnabled ? islands.getSleepingCount() : 0;
+    }
+
+    private int countMovingBodies() {
+        int count = 0;
+        for (int i = 0; i < store.size; i++) {
+            if (store.bodyType[i] != JesterColliderStore.BODY_STATIC) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Moves each bullet back to the first STATIC or KINEMATIC collider it touched during
+     * this step (its time of impact), and stops it from moving further into it.
+     * The normal collision pass then sees the two touching and resolves them as usual.
+     * Only the colliders in the AABB tree that touch the box swept by the bullet are tested.
+     */
+    private void sweepBullets() {
+        boolean treeUpdated = false;
+        for (int i = 0; i < store.size; i++) {
+            if (!store.bullet[i] || store.bodyType[i] != JesterColliderStore.BODY_RIGID || !store.awake[i]) continue;
+
+            float startX = store.previousX[i];
+            float startY = store.previousY[i];
+            float dx = store.x[i] - startX;
+            float dy = store.y[i] - startY;
+            float w = store.width[i];
+            float h = store.height[i];
+
+            // Moving less than its own size, a body can't skip over anything
+            if (Math.abs(dx) <= w && Math.abs(dy) <= h) continue;
+
+            if (!treeUpdated) {
+                aabbTree.update(store);
+                treeUpdated = true;
+            }
+            int found = aabbTree.queryFixed(Math.min(startX, store.x[i]), Math.min(startY, store.y[i]),
+                    Math.max(startX, store.x[i]) + w, Math.max(startY, store.y[i]) + h);
+            int[] candidates = aabbTree.getFound();
+
+            float firstHit = 1f;
+            int firstHandle = 0;
+            boolean hitX = false;
+            boolean hit = false;
+            for (int k = 0; k < found; k++) {
+                int j = candidates[k];
+                if (!shouldCollide(i, j)) continue;
+
+                // Sweep a point against the wall grown by the bullet's size (Minkowski sum)
+                float left = store.x[j] - w;
+                float top = store.y[j] - h;
+                float right = store.x[j] + store.width[j];
+                float bottom = store.y[j] + store.height[j];
+
+                float enterX, exitX, enterY, exitY;
+                if (dx == 0) {
+                    if (startX <= left || startX >= right) continue;
+                    enterX = Float.NEGATIVE_INFINITY;
+                    exitX = Float.POSITIVE_INFINITY;
+                } else {
+                    float t0 = (left - startX) / dx;
+                    float t1 = (right - startX) / dx;
+                    enterX = Math.min(t0, t1);
+                    exitX = Math.max(t0, t1);
+                }
+                if (dy == 0) {
+                    if (startY <= top || startY >= bottom) continue;
+                    enterY = Float.NEGATIVE_INFINITY;
+                    exitY = Float.POSITIVE_INFINITY;
+                } else {
+                    float t0 = (top - startY) / dy;
+                    float t1 = (bottom - startY) / dy;
+                    enterY = Math.min(t0, t1);
+                    exitY = Math.max(t0, t1);
+                }
+
+                float enter = Math.max(enterX, enterY);
+                float exit = Math.min(exitX, exitY);
+                // enter < 0 means they already overlapped at the start; the normal pass handles that
+                if (enter > exit || enter < 0 || enter > firstHit) continue;
+                // Ties go to the lower handle, so the tree's order doesn't matter
+                if (enter == firstHit && (!hit || store.handle[j] >= firstHandle)) continue;
+
+                firstHit = enter;
+                firstHandle = store.handle[j];
+                hitX = enterX > enterY;
+                hit = true;
+            }
+
+            if (!hit) continue;
+
+            store.x[i] = startX + dx * firstHit;
+            store.y[i] = startY + dy * firstHit;
+            store.markDirty(i);
+            if (hitX) {
+                store.velocityX[i] = 0;
+            } else {
+                store.velocityY[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Sets how many physics steps run per second of game time.
+     * Fixed steps make the simulation independent of the frame rate; 60 is a good choice.
+     * Use 0 to step once per update with the frame's delta time instead.
+     * @param stepsPerSecond The fixed step rate (default 0, off)
+     */
+    public void setStepRate(float stepsPerSecond) {
+        this.stepRate = Math.max(0, stepsPerSecond);
+        this.accumulator = 0;
+    }
+
+    public float getStepRate() { return stepRate; }
+
+    /**
+     * Sets the most physics steps one update may run. If a frame takes longer
+     * than that, the extra time is dropped and the game slows down briefly.
+     * @param maxSubsteps The step cap (default 8)
+     */
+    public void setMaxSubsteps(int maxSubsteps) {
+        this.maxSubsteps = Math.max(1, maxSubsteps);
+    }
+
+    public int getMaxSubsteps() { return maxSubsteps; }
+
+    /**
+     * Gets how far the game is between the last physics step and the next one (0 to 1).
+     * Draw colliders at previous + (current - previous) * alpha for smooth movement,
+     * or simply use {@link JesterCollider#getInterpolatedX()}.
+     * @return The interpolation alpha
+     */
+    public float getInterpolationAlpha() { return interpolationAlpha; }
+
+    /**
+     * Gets how many physics steps the last update ran
+     * @return The number of steps
+     */
+    public int getSubstepCount() { return substepCount; }
+
     // Method to pause the physics
     public void pause() {
         isPaused = true;
@@ -55,7 +761,13 @@ public class JesterPhysics {
      * @param name The name of the collision class
      */
     public void addCollisionClass(String name) {
-        collisionClasses.put(name, new JesterCollisionClass(name));
+        JesterCollisionClass collisionClass = new JesterCollisionClass(name);
+        int id = internCollisionClass(name);
+        collisionClass.setId(id);
+        collisionClasses.put(name, collisionClass);
+
+        // A re-added class starts over without any ignores
+        setCollisionClassMask(id, -1);
     }
 
     /**
@@ -67,17 +779,54 @@ public class JesterPhysics {
         JesterCollisionClass c1 = collisionClasses.get(class1);
         if (c1 != null) {
             c1.ignore(class2);
+            int id2 = internCollisionClass(class2);
+            setCollisionClassMask(c1.getId(), collisionClassMasks[c1.getId()] & ~(1 << id2));
         }
     }
 
-    private boolean shouldCollide(JesterCollider a, JesterCollider b) {
-        JesterCollisionClass classA = collisionClasses.get(a.getCollisionClass());
-        JesterCollisionClass classB = collisionClasses.get(b.getCollisionClass());
+    /**
+     * Gives the collider at the given index the bits of a collision class
+     */
+    void applyCollisionClass(int index, String name) {
+        int id = internCollisionClass(name);
+        store.category[index] = 1 << id;
+        store.mask[index] = collisionClassMasks[id];
+    }
 
-        if (classA != null && classA.shouldIgnore(b.getCollisionClass())) return false;
-        if (classB != null && classB.shouldIgnore(a.getCollisionClass())) return false;
+    /**
+     * Gets the id of a collision class name, giving it the next free id the first time
+     */
+    private int internCollisionClass(String name) {
+        Integer id = collisionClassIds.get(name);
+        if (id != null) return id;
 
-        return true;
+        int next = collisionClassIds.size();
+        if (next == MAX_COLLISION_CLASSES) {
+            throw new IllegalStateException("A physics world supports at most "
+                    + MAX_COLLISION_CLASSES + " collision classes");
+        }
+        collisionClassIds.put(name, next);
+        collisionClassMasks[next] = -1; // Collides with everything until told otherwise
+        return next;
+    }
+
+    private void setCollisionClassMask(int id, int mask) {
+        collisionClassMasks[id] = mask;
+        int category = 1 << id;
+        for (int i = 0; i < store.size; i++) {
+            if (store.category[i] == category) {
+                store.mask[i] = mask;
+            }
+        }
+    }
+
+    /**
+     * Checks the collision class bits of two colliders.
+     * Both must accept the other's class, matching the old rule that either class
+     * ignoring the other was enough to skip the pair.
+     */
+    private boolean shouldCollide(int a, int b) {
+        return (store.category[a] & store.mask[b]) != 0 && (store.category[b] & store.mask[a]) != 0;
     }
 
     /**
@@ -86,9 +835,106 @@ public class JesterPhysics {
      */
     public void draw(JesterGraphics g) {
         if (!debugDraw) return;
-        for (JesterCollider collider : colliders) {
-            collider.draw(g);
+        for (int t = 0; t < tileLayers.size(); t++) {
+            tileLayers.get(t).draw(g);
         }
+        for (int i = 0; i < store.size; i++) {
+            store.views[i].draw(g);
+        }
+    }
+
+    /**
+     * Finds the first collider along a line
+     * @param x1 Start X
+     * @param y1 Start Y
+     * @param x2 End X
+     * @param y2 End Y
+     * @param hit Filled in with the closest hit (reuse the same object every time)
+     * @return true if the line hit a collider
+     */
+    public boolean raycast(float x1, float y1, float x2, float y2, JesterRaycastHit hit) {
+        return queries.raycast(x1, y1, x2, y2, -1, -1, hit);
+    }
+
+    /**
+     * Finds the first collider along a line that the given collision class collides with
+     * @param collisionClass The collision class the ray acts as (e.g. "Bullet")
+     * @see #raycast(float, float, float, float, JesterRaycastHit)
+     */
+    public boolean raycast(float x1, float y1, float x2, float y2, String collisionClass, JesterRaycastHit hit) {
+        return queries.raycast(x1, y1, x2, y2, queryCategory(collisionClass), queryMask(collisionClass), hit);
+    }
+
+    /**
+     * Finds the colliders that overlap a rectangle
+     * @param x X position of the rectangle
+     * @param y Y position of the rectangle
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @param results Filled with the colliders found (at most results.length of them)
+     * @return How many colliders were written to results
+     */
+    public int queryAABB(float x, float y, float width, float height, JesterCollider[] results) {
+        return queries.queryBox(x, y, x + width, y + height, -1, -1, results);
+    }
+
+    /**
+     * Finds the colliders that overlap a rectangle and collide with the given collision class
+     * @see #queryAABB(float, float, float, float, JesterCollider[])
+     */
+    public int queryAABB(float x, float y, float width, float height, String collisionClass, JesterCollider[] results) {
+        return queries.queryBox(x, y, x + width, y + height,
+                queryCategory(collisionClass), queryMask(collisionClass), results);
+    }
+
+    /**
+     * Finds the colliders that contain a point
+     * @param x X position of the point
+     * @param y Y position of the point
+     * @param results Filled with the colliders found (at most results.length of them)
+     * @return How many colliders were written to results
+     */
+    public int queryPoint(float x, float y, JesterCollider[] results) {
+        return queries.queryPoint(x, y, -1, -1, results);
+    }
+
+    /**
+     * Finds the colliders that contain a point and collide with the given collision class
+     * @see #queryPoint(float, float, JesterCollider[])
+     */
+    public int queryPoint(float x, float y, String collisionClass, JesterCollider[] results) {
+        return queries.queryPoint(x, y, queryCategory(collisionClass), queryMask(collisionClass), results);
+    }
+
+    /**
+     * Finds the colliders that overlap a circle
+     * @param x X position of the center
+     * @param y Y position of the center
+     * @param radius Radius of the circle
+     * @param results Filled with the colliders found (at most results.length of them)
+     * @return How many colliders were written to results
+     */
+    public int overlapCircle(float x, float y, float radius, JesterCollider[] results) {
+        return queries.queryCircle(x, y, radius, -1, -1, results);
+    }
+
+    /**
+     * Finds the colliders that overlap a circle and collide with the given collision class
+     * @see #overlapCircle(float, float, float, JesterCollider[])
+     */
+    public int overlapCircle(float x, float y, float radius, String collisionClass, JesterCollider[] results) {
+        return queries.queryCircle(x, y, radius, queryCategory(collisionClass), queryMask(collisionClass), results);
+    }
+
+    // A class no collider or rule has used yet collides with everything
+    private int queryCategory(String collisionClass) {
+        Integer id = collisionClassIds.get(collisionClass);
+        return (id == null) ? -1 : 1 << id;
+    }
+
+    private int queryMask(String collisionClass) {
+        Integer id = collisionClassIds.get(collisionClass);
+        return (id == null) ? -1 : collisionClassMasks[id];
     }
 
     /**
@@ -100,9 +946,7 @@ public class JesterPhysics {
      * @return The created collider
      */
     public JesterCollider newRectangleCollider(float x, float y, float width, float height) {
-        JesterCollider collider = new JesterCollider(this, JesterCollider.Type.RECTANGLE, x, y, width, height);
-        colliders.add(collider);
-        return collider;
+        return new JesterCollider(this, JesterCollider.Type.RECTANGLE, x, y, width, height);
     }
 
     /**
@@ -113,38 +957,323 @@ public class JesterPhysics {
      * @return The created collider
      */
     public JesterCollider newCircleCollider(float x, float y, float radius) {
-        JesterCollider collider = new JesterCollider(this, JesterCollider.Type.CIRCLE, x, y, radius);
-        colliders.add(collider);
-        return collider;
+        return new JesterCollider(this, JesterCollider.Type.CIRCLE, x, y, radius);
+    }
+
+    /**
+     * Removes a collider from the world. Its slot is reused by the next new collider,
+     * so worlds that spawn and remove many short-lived bodies (like projectiles) don't grow.
+     * Called during an update (for example from a contact signal), the removal happens
+     * when the update is done.
+     * Don't use the collider after removing it.
+     * @param collider The collider to remove
+     * @return true if the collider was in this world and is now (or will be) removed
+     */
+    public boolean removeCollider(JesterCollider collider) {
+        if (collider == null || collider.getWorld() != this || collider.isRemoved()) return false;
+        return removeCollider(collider.getHandle());
+    }
+
+    /**
+     * Removes the collider with the given handle
+     * @param handle The handle of the collider (see {@link JesterCollider#getHandle()})
+     * @return true if the collider was found and is now (or will be) removed
+     * @see #removeCollider(JesterCollider)
+     */
+    public boolean removeCollider(int handle) {
+        if (store.indexOf(handle) < 0) return false;
+
+        if (updating) {
+            if (pendingRemovalCount == pendingRemovals.length) {
+                pendingRemovals = Arrays.copyOf(pendingRemovals, pendingRemovalCount * 2);
+            }
+            pendingRemovals[pendingRemovalCount++] = handle;
+            return true;
+        }
+        removeNow(store.indexOf(handle));
+        return true;
+    }
+
+    /**
+     * Finds a collider by its handle
+     * @param handle The handle (see {@link JesterCollider#getHandle()})
+     * @return The collider, or null if it was removed
+     */
+    public JesterCollider getCollider(int handle) {
+        return store.viewOf(handle);
     }
 
     /**
-     * Checks for collisions between all colliders
+     * Gets how many colliders are in the world
+     * @return The number of colliders
+     */
+    public int getColliderCount() { return store.size; }
+
+    private void flushRemovals() {
+        for (int k = 0; k < pendingRemovalCount; k++) {
+            int index = store.indexOf(pendingRemovals[k]);
+            if (index >= 0) { // Might have been queued twice
+                removeNow(index);
+            }
+        }
+        pendingRemovalCount = 0;
+    }
+
+    private void removeNow(int index) {
+        JesterCollider view = store.views[index];
+        if (contactEventsEnabled) {
+            contactTracker.colliderRemoved(store, store.handle[index]);
+        }
+
+        // Bodies resting on the removed one must fall, so wake whatever it touched
+        if (islands.getSleepingCount() > 0) {
+            wakeCount = 0;
+            pushWoken(index);
+            findSleepers(store.x[index], store.y[index],
+                    store.x[index] + store.width[index], store.y[index] + store.height[index]);
+            wakeConnected();
+        }
+
+        int last = store.remove(index);
+        view.setIndex(-1);
+
+        // Everything that remembers indices follows the collider that moved into the gap
+        sweepAndPrune.colliderRemoved(index, last);
+        aabbTree.colliderRemoved(index, last);
+        spatialHash.colliderRemoved(index, last);
+        renameContacts(index, last);
+        contactListCount = -1;
+    }
+
+    // Keeps the last step's contact list valid for the next removal
+    private void renameContacts(int index, int last) {
+        int write = 0;
+        for (int k = 0; k < contacts.size; k++) {
+            int i = contacts.first[k];
+            int j = contacts.second[k];
+            if (i == index || j == index) continue;
+            if (i == last) i = index;
+            if (j == last) j = index;
+            contacts.first[write] = Math.min(i, j);
+            contacts.second[write] = Math.max(i, j);
+            write++;
+        }
+        contacts.size = write;
+    }
+
+    /**
+     * Chooses how candidate collision pairs are found.
+     * BRUTE_FORCE is the default; the other broadphases are much faster with thousands
+     * of colliders. With AABB_TREE, pairs without a RIGID body are never tested.
+     * @param broadphase The broadphase to use
+     */
+    public void setBroadphase(Broadphase broadphase) {
+        this.broadphase = broadphase;
+    }
+
+    public Broadphase getBroadphase() { return broadphase; }
+
+    /**
+     * Sets the grid cell size used by the SPATIAL_HASH broadphase.
+     * A good value is about the size of a typical collider.
+     * @param cellSize The width and height of a cell
+     */
+    public void setCellSize(float cellSize) {
+        spatialHash.setCellSize(cellSize);
+    }
+
+    public float getCellSize() { return spatialHash.getCellSize(); }
+
+    /**
+     * Gets how many collider pairs were tested for overlap during the last update
+     * @return The number of pair tests
+     */
+    public int getPairTestCount() { return pairTestCount; }
+
+    /**
+     * Gets how many touching collider pairs the last step found
+     * @return The number of contacts
+     */
+    public int getContactCount() { return contacts.size; }
+
+    /**
+     * Gets how long the last update took (all of its steps)
+     * @return The update time in nanoseconds
+     */
+    public long getLastStepNanos() { return lastStepNanos; }
+
+    /**
+     * Runs the collision tests on all cores of the common ForkJoinPool.
+     * The contacts come out in the same order as on one thread and are resolved
+     * afterwards on the calling thread, so the result is bit-identical to the
+     * single-threaded mode whatever the number of threads.
+     * @param enabled true to test pairs in parallel
+     */
+    public void setParallel(boolean enabled) {
+        setParallel(enabled ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Runs the collision tests on the given pool (null for single-threaded)
+     * @param pool The pool to use
+     */
+    public void setParallel(ForkJoinPool pool) {
+        this.parallel = (pool != null) ? new JesterParallelNarrowphase(pool) : null;
+    }
+
+    public boolean isParallel() { return parallel != null; }
+
+    /**
+     * Checks for collisions between all colliders.
+     * Every touching pair is found first and then resolved in that order, on one thread
+     * or several, so the parallel narrowphase gives the same result as the sequential one.
+     * A pair pushed into overlap by an earlier resolution is caught in the next step.
      */
     private void checkCollisions() {
-        for (int i = 0; i < colliders.size(); i++) {
-            for (int j = i + 1; j < colliders.size(); j++) {
-                JesterCollider a = colliders.get(i);
-                JesterCollider b = colliders.get(j);
+        contacts.clear();
+        manifoldCount = 0;
+
+        findContacts();
+        if (deterministic) sortContacts();
+        for (int k = 0; k < contacts.size; k++) {
+            resolveContact(contacts.first[k], contacts.second[k]);
+        }
+    }
+
+    /**
+     * Pushes two touching colliders apart with the POSITIONAL solver
+     */
+    private void resolveContact(int i, int j) {
+        // Resting pairs (nothing awake) cost nothing
+        if (!store.isActive(i) && !store.isActive(j)) return;
+
+        // An earlier resolution may already have pushed these two apart
+        JesterManifold m = nextManifold();
+        if (!JesterNarrowphase.collide(store, i, j, m)) return;
+        manifoldCount++;
+
+        if (store.type[i] == JesterColliderStore.TYPE_RECTANGLE
+                && store.type[j] == JesterColliderStore.TYPE_RECTANGLE) {
+            handleCollision(store.views[i], store.views[j]);
+        } else {
+            resolveManifold(m);
+        }
+    }
 
-                // Add this line here, before checking collision
-                if (!shouldCollide(a, b)) continue;
+    /**
+     * Finds the contacts of this step and solves them with the impulse solver
+     */
+    private void solveContacts(float dt) {
+        contacts.clear();
+        findContacts();
+        if (deterministic) sortContacts();
+
+        manifoldCount = 0;
+        for (int k = 0; k < contacts.size; k++) {
+            int i = contacts.first[k];
+            int j = contacts.second[k];
+            if (!store.isActive(i) && !store.isActive(j)) continue;
+            if (JesterNarrowphase.collide(store, i, j, nextManifold())) {
+                manifoldCount++;
+            }
+        }
+
+        impulseSolver.solve(store, manifolds, manifoldCount, dt, solverIterations, friction);
+    }
+
+    private JesterManifold nextManifold() {
+        if (manifoldCount == manifolds.length) {
+            manifolds = Arrays.copyOf(manifolds, Math.max(16, manifoldCount * 2));
+            for (int k = manifoldCount; k < manifolds.length; k++) {
+                manifolds[k] = new JesterManifold();
+            }
+        }
+        return manifolds[manifoldCount];
+    }
 
-                if (checkCollisionBetween(a, b)) {
-                    handleCollision(a, b);
+    /**
+     * Fills the contact buffer with every pair that passes the filter and overlaps
+     */
+    private void findContacts() {
+        if (broadphase == Broadphase.BRUTE_FORCE) {
+            if (parallel != null) {
+                pairTestCount += parallel.detectAllPairs(this, store.size, contacts);
+                return;
+            }
+            for (int i = 0; i < store.size; i++) {
+                for (int j = i + 1; j < store.size; j++) {
+                    testPair(i, j);
                 }
             }
+            return;
+        }
+
+        JesterBroadphase finder;
+        switch (broadphase) {
+            case SPATIAL_HASH:
+                finder = spatialHash;
+                break;
+            case SWEEP_AND_PRUNE:
+                finder = sweepAndPrune;
+                break;
+            default:
+                finder = aabbTree;
+                break;
+        }
+        pairs.clear();
+        finder.collectPairs(store, pairs);
+
+        if (parallel != null) {
+            pairTestCount += parallel.detect(this, pairs, contacts);
+            return;
+        }
+        for (int k = 0; k < pairs.size; k++) {
+            testPair(pairs.first[k], pairs.second[k]);
         }
     }
 
+    /**
+     * Runs the narrowphase on one pair, recording it as a contact if it touches
+     */
+    private void testPair(int i, int j) {
+        if (store.isResting(i, j)) {
+            if (wasTouching(i, j)) contacts.add(i, j);
+            return;
+        }
+        pairTestCount++;
+
+        if (isTouching(i, j)) {
+            contacts.add(i, j);
+        }
+    }
+
+    /**
+     * Checks if a resting pair (see {@link JesterColliderStore#isResting}) touched in the
+     * last step. Neither collider has moved since, so it still touches now, and the
+     * narrowphase is skipped. Only reads world state, so it is safe to call from several threads.
+     */
+    boolean wasTouching(int i, int j) {
+        return shouldCollide(i, j)
+                && lastContacts.contains(JesterContactCache.key(store.handle[i], store.handle[j]));
+    }
+
+    /**
+     * Checks if two colliders overlap and are allowed to collide.
+     * Only reads world state, so it is safe to call from several threads.
+     */
+    boolean isTouching(int i, int j) {
+        return shouldCollide(i, j) && checkCollisionBetween(i, j) && JesterNarrowphase.overlaps(store, i, j);
+    }
+
     /**
      * Checks if two colliders are intersecting
      */
-    private boolean checkCollisionBetween(JesterCollider a, JesterCollider b) {
-        return !(a.getX() + a.getWidth() < b.getX() ||
-                b.getX() + b.getWidth() < a.getX() ||
-                a.getY() + a.getHeight() < b.getY() ||
-                b.getY() + b.getHeight() < a.getY());
+    private boolean checkCollisionBetween(int a, int b) {
+        float[] x = store.x, y = store.y, w = store.width, h = store.height;
+        return !(x[a] + w[a] < x[b] ||
+                x[b] + w[b] < x[a] ||
+                y[a] + h[a] < y[b] ||
+                y[b] + h[b] < y[a]);
     }
 
     /**
@@ -215,7 +1344,7 @@ public class JesterPhysics {
                     //transferPlatformMovement(movable, movable);
                     // If on a moving platform, move with it
                     if (fixed.getBodyType() == JesterCollider.BodyType.KINEMATIC) {
-                        movable.setX(movable.getX() + fixed.getVelocityX() * 0.016f);
+                        movable.setX(movable.getX() + fixed.getVelocityX() * stepDt);
                     }
                 } else {
                     // Hitting the platform from below (bonking head)
@@ -228,17 +1357,68 @@ public class JesterPhysics {
         }
     }
 
+    /**
+     * Pushes apart two colliders using their contact manifold (used when a circle is involved).
+     * Only RIGID bodies are moved, and they stop moving into whatever they hit.
+     */
+    private void resolveManifold(JesterManifold m) {
+        JesterCollider a = store.views[m.first];
+        JesterCollider b = store.views[m.second];
+        boolean rigidA = a.getBodyType() == JesterCollider.BodyType.RIGID;
+        boolean rigidB = b.getBodyType() == JesterCollider.BodyType.RIGID;
+        float nx = m.normalX;
+        float ny = m.normalY;
+
+        if (rigidA && rigidB) {
+            // Both are movable - move both half way
+            float half = m.depth * 0.5f;
+            a.setX(a.getX() - nx * half);
+            a.setY(a.getY() - ny * half);
+            b.setX(b.getX() + nx * half);
+            b.setY(b.getY() + ny * half);
+            stopMovingInto(a, nx, ny);
+            stopMovingInto(b, -nx, -ny);
+        } else if (rigidA || rigidB) {
+            // One is immovable - move the movable one all the way
+            JesterCollider movable = rigidA ? a : b;
+            JesterCollider fixed = rigidA ? b : a;
+            // Direction from the movable body into the fixed one
+            float intoX = rigidA ? nx : -nx;
+            float intoY = rigidA ? ny : -ny;
+
+            movable.setX(movable.getX() - intoX * m.depth);
+            movable.setY(movable.getY() - intoY * m.depth);
+            stopMovingInto(movable, intoX, intoY);
+
+            // Standing on a moving platform: move with it
+            if (fixed.getBodyType() == JesterCollider.BodyType.KINEMATIC && intoY > 0.7f) {
+                movable.setX(movable.getX() + fixed.getVelocityX() * stepDt);
+            }
+        }
+    }
+
+    // Removes the part of the velocity that goes along the given direction
+    private void stopMovingInto(JesterCollider c, float dirX, float dirY) {
+        float speed = c.getVelocityX() * dirX + c.getVelocityY() * dirY;
+        if (speed > 0) {
+            c.setVelocityX(c.getVelocityX() - dirX * speed);
+            c.setVelocityY(c.getVelocityY() - dirY * speed);
+        }
+    }
+
     // Calculate platform movement for any object on top of another
     private void transferPlatformMovement(JesterCollider bottom, JesterCollider top) {
         if (bottom.getBodyType() == JesterCollider.BodyType.KINEMATIC) {
             // Direct platform movement
-            top.setX(top.getX() + bottom.getVelocityX() * 0.016f);
+            top.setX(top.getX() + bottom.getVelocityX() * stepDt);
         } else if (bottom.getBodyType() == JesterCollider.BodyType.RIGID) {
             // Transfer movement from rigid body (which might be on a platform)
-            top.setX(top.getX() + bottom.getVelocityX() * 0.016f);
+            top.setX(top.getX() + bottom.getVelocityX() * stepDt);
         }
     }
 
+    JesterColliderStore getStore() { return store; }
+
     public float getGravityY() { return gravityY; }
     public void setDebugDraw(boolean enabled) { this.debugDraw = enabled; }
 }
\ No newline at end of file
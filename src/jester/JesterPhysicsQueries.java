@@ -0,0 +1,243 @@
+package jester;
+
+/**
+ * Answers ray, box, point and circle queries for a physics world.
+ * Queries search the AABB trees of the world's {@link JesterTreeBroadphase}, which are
+ * brought up to date the first time a query runs: after a physics step every proxy is
+ * checked, otherwise only the colliders that were added or moved since. Results are
+ * written into arrays owned by the caller, so repeated queries do not allocate.
+ */
+final class JesterPhysicsQueries implements JesterAABBTree.QueryCallback, JesterAABBTree.RaycastCallback {
+    private static final byte SHAPE_BOX = 0;
+    private static final byte SHAPE_POINT = 1;
+    private static final byte SHAPE_CIRCLE = 2;
+
+    private final JesterColliderStore store;
+    private final JesterTreeBroadphase trees;
+
+    // State of the query currently running
+    private int filterCategory, filterMask;
+    private byte shape;
+    private float qx0, qy0, qx1, qy1;   // Query box, or point in qx0/qy0
+    private float qRadius;              // Circle queries (center in qx0/qy0)
+    private JesterCollider[] results;
+    private int resultCount;
+
+    // State of the ray cast currently running
+    private float rayX, rayY, rayDx, rayDy;
+    private int bestIndex;
+    private float bestFraction, bestNormalX, bestNormalY;
+
+    JesterPhysicsQueries(JesterColliderStore store, JesterTreeBroadphase trees) {
+        this.store = store;
+        this.trees = trees;
+    }
+
+    /**
+     * Finds the closest collider along a segment
+     * @return true if something was hit
+     */
+    boolean raycast(float x1, float y1, float x2, float y2, int category, int mask, JesterRaycastHit hit) {
+        trees.update(store);
+        filterCategory = category;
+        filterMask = mask;
+        rayX = x1;
+        rayY = y1;
+        rayDx = x2 - x1;
+        rayDy = y2 - y1;
+        bestIndex = -1;
+
+        trees.raycast(x1, y1, x2, y2, this);
+
+        if (bestIndex < 0) {
+            hit.clear();
+            return false;
+        }
+        hit.set(store.views[bestIndex], x1 + rayDx * bestFraction, y1 + rayDy * bestFraction,
+                bestNormalX, bestNormalY, bestFraction);
+        return true;
+    }
+
+    int queryBox(float x0, float y0, float x1, float y1, int category, int mask, JesterCollider[] out) {
+        shape = SHAPE_BOX;
+        qx0 = x0;
+        qy0 = y0;
+        qx1 = x1;
+        qy1 = y1;
+        return runQuery(x0, y0, x1, y1, category, mask, out);
+    }
+
+    int queryPoint(float x, float y, int category, int mask, JesterCollider[] out) {
+        shape = SHAPE_POINT;
+        qx0 = x;
+        qy0 = y;
+        return runQuery(x, y, x, y, category, mask, out);
+    }
+
+    int queryCircle(float cx, float cy, float radius, int category, int mask, JesterCollider[] out) {
+        shape = SHAPE_CIRCLE;
+        qx0 = cx;
+        qy0 = cy;
+        qRadius = radius;
+        return runQuery(cx - radius, cy - radius, cx + radius, cy + radius, category, mask, out);
+    }
+
+    private int runQuery(float x0, float y0, float x1, float y1, int category, int mask, JesterCollider[] out) {
+        trees.update(store);
+        filterCategory = category;
+        filterMask = mask;
+        results = out;
+        resultCount = 0;
+
+        if (out.length > 0) {
+            trees.query(x0, y0, x1, y1, this);
+        }
+
+        results = null;
+        return resultCount;
+    }
+
+    @Override
+    public boolean reportProxy(int proxy, int i) {
+        if (!accepts(i)) return true;
+
+        boolean hit;
+        if (shape == SHAPE_BOX) {
+            hit = overlapsBox(i, qx0, qy0, qx1, qy1);
+        } else if (shape == SHAPE_POINT) {
+            hit = containsPoint(i, qx0, qy0);
+        } else {
+            hit = overlapsCircle(i, qx0, qy0, qRadius);
+        }
+
+        if (hit) {
+            results[resultCount++] = store.views[i];
+        }
+        return resultCount < results.length; // Stop once the caller's array is full
+    }
+
+    @Override
+    public float reportRay(int proxy, int i, float maxFraction) {
+        // The second tree starts over at 1, so keep the closest hit of the first one
+        if (bestIndex >= 0) maxFraction = Math.min(maxFraction, bestFraction);
+        if (!accepts(i)) return maxFraction;
+
+        float fraction = (store.type[i] == JesterColliderStore.TYPE_CIRCLE)
+                ? rayCircle(i, maxFraction)
+                : rayBox(i, maxFraction);
+        if (fraction < 0) return maxFraction;
+
+        bestIndex = i;
+        bestFraction = fraction;
+        return fraction; // Only look for closer hits from now on
+    }
+
+    private boolean accepts(int i) {
+        return (filterCategory & store.mask[i]) != 0 && (store.category[i] & filterMask) != 0;
+    }
+
+    // Returns the hit fraction, or -1 for a miss; also sets the hit normal
+    private float rayBox(int i, float maxFraction) {
+        float x0 = store.x[i], y0 = store.y[i];
+        float x1 = x0 + store.width[i], y1 = y0 + store.height[i];
+        float tMin = 0;
+        float tMax = maxFraction;
+        float nx = 0, ny = 0;
+
+        if (rayDx == 0) {
+            if (rayX < x0 || rayX > x1) return -1;
+        } else {
+            float t0 = (x0 - rayX) / rayDx;
+            float t1 = (x1 - rayX) / rayDx;
+            float enter = Math.min(t0, t1);
+            if (enter > tMin) {
+                tMin = enter;
+                nx = (rayDx > 0) ? -1 : 1;
+            }
+            tMax = Math.min(tMax, Math.max(t0, t1));
+            if (tMin > tMax) return -1;
+        }
+
+        if (rayDy == 0) {
+            if (rayY < y0 || rayY > y1) return -1;
+        } else {
+            float t0 = (y0 - rayY) / rayDy;
+            float t1 = (y1 - rayY) / rayDy;
+            float enter = Math.min(t0, t1);
+            if (enter > tMin) {
+                tMin = enter;
+                nx = 0;
+                ny = (rayDy > 0) ? -1 : 1;
+            }
+            tMax = Math.min(tMax, Math.max(t0, t1));
+            if (tMin > tMax) return -1;
+        }
+
+        // A ray starting inside the box hits it right away, with no surface normal
+        bestNormalX = nx;
+        bestNormalY = ny;
+        return tMin;
+    }
+
+    private float rayCircle(int i, float maxFraction) {
+        float r = store.radius[i];
+        float fx = rayX - (store.x[i] + r);
+        float fy = rayY - (store.y[i] + r);
+        float c = fx * fx + fy * fy - r * r;
+        if (c <= 0) {
+            bestNormalX = 0;
+            bestNormalY = 0;
+            return 0; // Starts inside
+        }
+
+        float a = rayDx * rayDx + rayDy * rayDy;
+        float b = fx * rayDx + fy * rayDy;
+        float discriminant = b * b - a * c;
+        if (a == 0 || discriminant < 0) return -1;
+
+        float t = (-b - (float) Math.sqrt(discriminant)) / a;
+        if (t < 0 || t > maxFraction) return -1;
+
+        bestNormalX = (fx + rayDx * t) / r;
+        bestNormalY = (fy + rayDy * t) / r;
+        return t;
+    }
+
+    private boolean overlapsBox(int i, float x0, float y0, float x1, float y1) {
+        if (store.type[i] == JesterColliderStore.TYPE_CIRCLE) {
+            float r = store.radius[i];
+            return circleTouchesBox(store.x[i] + r, store.y[i] + r, r, x0, y0, x1, y1);
+        }
+        return store.x[i] <= x1 && store.x[i] + store.width[i] >= x0
+                && store.y[i] <= y1 && store.y[i] + store.height[i] >= y0;
+    }
+
+    private boolean containsPoint(int i, float px, float py) {
+        if (store.type[i] == JesterColliderStore.TYPE_CIRCLE) {
+            float r = store.radius[i];
+            float dx = px - (store.x[i] + r);
+            float dy = py - (store.y[i] + r);
+            return dx * dx + dy * dy <= r * r;
+        }
+        return px >= store.x[i] && px <= store.x[i] + store.width[i]
+                && py >= store.y[i] && py <= store.y[i] + store.height[i];
+    }
+
+    private boolean overlapsCircle(int i, float cx, float cy, float radius) {
+        if (store.type[i] == JesterColliderStore.TYPE_CIRCLE) {
+            float r = store.radius[i];
+            float dx = cx - (store.x[i] + r);
+            float dy = cy - (store.y[i] + r);
+            float reach = radius + r;
+            return dx * dx + dy * dy <= reach * reach;
+        }
+        return circleTouchesBox(cx, cy, radius, store.x[i], store.y[i],
+                store.x[i] + store.width[i], store.y[i] + store.height[i]);
+    }
+
+    private static boolean circleTouchesBox(float cx, float cy, float r, float x0, float y0, float x1, float y1) {
+        float dx = cx - Math.max(x0, Math.min(cx, x1));
+        float dy = cy - Math.max(y0, Math.min(cy, y1));
+        return dx * dx + dy * dy <= r * r;
+    }
+}
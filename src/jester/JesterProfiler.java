@@ -0,0 +1,226 @@
+package jester;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures how long named parts of each frame take (update, physics, render...).
+ * Wrap code in begin/end calls of a zone; zones can be nested. At the end of each frame
+ * the time spent in every zone is stored in a ring buffer holding the last frames, and
+ * {@link #getPercentile(String, double)} tells how slow a zone's typical and worst frames were.
+ *
+ * All memory is allocated when a zone is created, so profiling does not make garbage.
+ * While disabled (the default), begin and end return right away.
+ *
+ * <pre>
+ * static final int AI = Jester.profiler.zone("ai");
+ * Jester.profiler.begin(AI);
+ * updateEnemies(dt);
+ * Jester.profiler.end(AI);
+ * </pre>
+ *
+ * Zones are recorded for one thread only (the first that uses the profiler after it is
+ * enabled, normally the game loop); calls from other threads are ignored.
+ *
+ * A zone that ends out of order or is left open at the end of a frame doesn't stop the
+ * game: the profiler prints one warning to System.err and carries on.
+ */
+public class JesterProfiler {
+    private static final int MAX_ZONES = 64;
+    private static final int MAX_DEPTH = 32;
+    private static final int WINDOW = 512; // Frames kept per zone
+
+    private volatile boolean enabled;
+    private volatile Thread owner;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final String[] names = new String[MAX_ZONES];
+    private int zoneCount;
+
+    // This frame
+    private final long[] frameTotal = new long[MAX_ZONES];
+    private final boolean[] entered = new boolean[MAX_ZONES];
+
+    // Open zones
+    private final int[] stackZone = new int[MAX_DEPTH];
+    private final long[] stackStart = new long[MAX_DEPTH];
+    private int depth;
+    private boolean warned; // Only the first misuse is printed
+
+    // Last frames of every zone
+    private final long[][] samples = new long[MAX_ZONES][];
+    private final int[] sampleCount = new int[MAX_ZONES];
+    private final int[] sampleNext = new int[MAX_ZONES];
+    private final long[] sorted = new long[WINDOW];
+
+    /**
+     * Turns profiling on or off. Turning it on clears all recorded frames.
+     * @param enabled true to record zones
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            Arrays.fill(sampleCount, 0);
+            Arrays.fill(sampleNext, 0);
+            Arrays.fill(frameTotal, 0);
+            Arrays.fill(entered, false);
+            depth = 0;
+            owner = null;
+            warned = false;
+        }
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * Gets the id of a zone, creating it the first time. Look ids up once (e.g. in a
+     * static field) and pass them to begin and end.
+     * @param name The zone name
+     * @return The zone id
+     */
+    public synchronized int zone(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        if (zoneCount == MAX_ZONES) {
+            throw new IllegalStateException("The profiler supports at most " + MAX_ZONES + " zones");
+        }
+        int next = zoneCount++;
+        names[next] = name;
+        samples[next] = new long[WINDOW];
+        ids.put(name, next);
+        return next;
+    }
+
+    /**
+     * Starts timing a zone
+     * @param zone The zone id from {@link #zone(String)}
+     */
+    public void begin(int zone) {
+        if (!enabled || !isOwner()) return;
+        if (depth < MAX_DEPTH) {
+            stackZone[depth] = zone;
+            stackStart[depth] = System.nanoTime();
+        }
+        depth++;
+    }
+
+    /**
+     * Stops timing a zone. Zones must end in the reverse order they began; zones begun
+     * inside this one and not ended yet are ended with it.
+     * @param zone The zone id passed to begin
+     */
+    public void end(int zone) {
+        if (!enabled || !isOwner() || depth == 0) return;
+        if (depth > MAX_DEPTH) { // Too deep to be timed
+            depth--;
+            return;
+        }
+
+        int open = depth - 1;
+        while (open >= 0 && stackZone[open] != zone) {
+            open--;
+        }
+        if (open < 0) {
+            warn("zone '" + names[zone] + "' ended but was not begun");
+            return;
+        }
+        if (open != depth - 1) {
+            warn("zone '" + names[zone] + "' ended inside '" + names[stackZone[depth - 1]] + "'");
+        }
+
+        long now = System.nanoTime();
+        while (depth > open) {
+            depth--;
+            frameTotal[stackZone[depth]] += now - stackStart[depth];
+            entered[stackZone[depth]] = true;
+        }
+    }
+
+    /**
+     * Finishes a frame: the time of every zone used this frame goes into its ring buffer.
+     * JesterMain and JesterHeadless call this for you.
+     */
+    public void endFrame() {
+        if (!enabled || !isOwner()) return;
+        synchronized (this) {
+            recordFrame();
+        }
+    }
+
+    // Samples are written under the lock that getPercentile reads them with
+    private void recordFrame() {
+        if (depth != 0) {
+            warn(depth + " zone(s) still open at the end of a frame");
+            depth = 0;
+        }
+        for (int z = 0; z < zoneCount; z++) {
+            if (!entered[z]) continue;
+            samples[z][sampleNext[z]] = frameTotal[z];
+            sampleNext[z] = (sampleNext[z] + 1) % WINDOW;
+            if (sampleCount[z] < WINDOW) sampleCount[z]++;
+            frameTotal[z] = 0;
+            entered[z] = false;
+        }
+    }
+
+    /**
+     * Gets a percentile of a zone's time per frame over the last frames
+     * @param zone The zone name
+     * @param percentile The percentile (50 = median, 99 = all but the slowest 1%)
+     * @return The time in milliseconds (0 if the zone has no frames)
+     */
+    public synchronized double getPercentile(String zone, double percentile) {
+        Integer id = ids.get(zone);
+        if (id == null || sampleCount[id] == 0) return 0;
+        int count = sampleCount[id];
+        System.arraycopy(samples[id], 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(rank, count - 1))] / 1_000_000.0;
+    }
+
+    /**
+     * Gets the slowest frame of a zone over the last frames
+     * @param zone The zone name
+     * @return The time in milliseconds
+     */
+    public double getMax(String zone) {
+        return getPercentile(zone, 100);
+    }
+
+    /**
+     * Gets a table with p50/p95/p99/max of every zone, for logging or an on-screen overlay
+     * @return The report
+     */
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-12s %8s %8s %8s %8s%n", "zone (ms)", "p50", "p95", "p99", "max"));
+        for (int z = 0; z < zoneCount; z++) {
+            String name = names[z];
+            if (sampleCount[z] == 0) continue;
+            report.append(String.format("%-12s %8.3f %8.3f %8.3f %8.3f%n", name,
+                    getPercentile(name, 50), getPercentile(name, 95), getPercentile(name, 99), getMax(name)));
+        }
+        return report.toString();
+    }
+
+    private void warn(String problem) {
+        if (warned) return;
+        warned = true;
+        System.err.println("Profiler: " + problem + " (further problems are not reported)");
+    }
+
+    // Only the first thread to record after enabling is measured
+    private boolean isOwner() {
+        Thread current = Thread.currentThread();
+        if (owner == current) return true;
+        synchronized (this) {
+            if (owner == null) {
+                owner = current;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,68 @@
+package jester;
+
+/**
+ * The result of a ray cast against a physics world.
+ * Create one and pass it to {@link JesterPhysics#raycast} as often as you like;
+ * the world fills it in instead of creating a new object for every cast.
+ */
+public class JesterRaycastHit {
+    private JesterCollider collider;
+    private float x, y;
+    private float normalX, normalY;
+    private float fraction;
+
+    /**
+     * Fills in the hit
+     */
+    void set(JesterCollider collider, float x, float y, float normalX, float normalY, float fraction) {
+        this.collider = collider;
+        this.x = x;
+        this.y = y;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.fraction = fraction;
+    }
+
+    /**
+     * Forgets the last hit
+     */
+    void clear() {
+        collider = null;
+    }
+
+    /**
+     * Gets the collider that was hit
+     * @return The collider, or null if the ray hit nothing
+     */
+    public JesterCollider getCollider() { return collider; }
+
+    /**
+     * Gets where the ray hit
+     * @return The X coordinate of the hit point
+     */
+    public float getX() { return x; }
+
+    /**
+     * Gets where the ray hit
+     * @return The Y coordinate of the hit point
+     */
+    public float getY() { return y; }
+
+    /**
+     * Gets the surface direction at the hit point (a unit vector pointing out of the collider)
+     * @return The X part of the normal
+     */
+    public float getNormalX() { return normalX; }
+
+    /**
+     * Gets the surface direction at the hit point (a unit vector pointing out of the collider)
+     * @return The Y part of the normal
+     */
+    public float getNormalY() { return normalY; }
+
+    /**
+     * Gets how far along the ray the hit is (0 at the start, 1 at the end)
+     * @return The hit fraction
+     */
+    public float getFraction() { return fraction; }
+}
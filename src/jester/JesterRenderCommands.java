@@ -0,0 +1,272 @@
+package jester;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Image;
+import java.util.Arrays;
+
+/**
+ * A recorded list of JesterGraphics calls.
+ * While JesterGraphics is recording, every draw call is written here instead of being
+ * drawn, and the list can be replayed later (on another thread) into a real Graphics2D.
+ *
+ * Commands are kept in primitive arrays (an opcode, its int and float arguments, and the
+ * objects it uses such as colors and fonts) so recording a frame does not allocate once
+ * the arrays have grown. Everything a command needs is copied when it is recorded, except
+ * images, which are drawn as they are when the list is replayed.
+ */
+final class JesterRenderCommands {
+    private static final byte PUSH = 0;
+    private static final byte POP = 1;
+    private static final byte ROTATE = 2;
+    private static final byte SCALE = 3;
+    private static final byte TRANSLATE = 4;
+    private static final byte RESET_TRANSFORM = 5;
+    private static final byte RECT = 6;
+    private static final byte TEXT = 7;
+    private static final byte CIRCLE = 8;
+    private static final byte ELLIPSE = 9;
+    private static final byte ROUND_RECT = 10;
+    private static final byte LINE = 11;
+    private static final byte ARC = 12;
+    private static final byte POINT = 13;
+    private static final byte TRIANGLE = 14;
+    private static final byte CLEAR = 15;
+    private static final byte SET_COLOR = 16;
+    private static final byte IMAGE = 17;
+    private static final byte POLYGON = 18;
+    private static final byte IMAGE_SCALED = 19;
+    private static final byte IMAGE_PART = 20;
+    private static final byte FILL_RECT = 21;
+
+    private byte[] ops = new byte[256];
+    private int[] ints = new int[1024];
+    private float[] floats = new float[256];
+    private Object[] objects = new Object[256];
+    private int opCount, intCount, floatCount, objectCount;
+
+    /**
+     * Removes all commands (keeps the arrays)
+     */
+    void clear() {
+        opCount = 0;
+        intCount = 0;
+        floatCount = 0;
+        Arrays.fill(objects, 0, objectCount, null); // Don't keep images and text alive
+        objectCount = 0;
+    }
+
+    /**
+     * Gets how many commands were recorded
+     */
+    int size() {
+        return opCount;
+    }
+
+    void push() { op(PUSH); }
+    void pop() { op(POP); }
+    void rotate(float angle) { op(ROTATE); f(angle); }
+    void scale(float x, float y) { op(SCALE); f(x); f(y); }
+    void translate(float dx, float dy) { op(TRANSLATE); f(dx); f(dy); }
+    void resetTransform() { op(RESET_TRANSFORM); }
+
+    void rect(String mode, int x, int y, int width, int height, Color color) {
+        op(RECT); o(mode); i(x); i(y); i(width); i(height); o(color);
+    }
+
+    void fillRect(int x, int y, int width, int height) {
+        op(FILL_RECT); i(x); i(y); i(width); i(height);
+    }
+
+    void text(String text, int x, int y, Color color, Font font) {
+        op(TEXT); o(text); i(x); i(y); o(color); o(font);
+    }
+
+    void circle(int x, int y, int radius, Color color) {
+        op(CIRCLE); i(x); i(y); i(radius); o(color);
+    }
+
+    void ellipse(String mode, int x, int y, int radiusX, int radiusY) {
+        op(ELLIPSE); o(mode); i(x); i(y); i(radiusX); i(radiusY);
+    }
+
+    void roundRect(String mode, int x, int y, int width, int height, int arcWidth, int arcHeight, Color color) {
+        op(ROUND_RECT); o(mode); i(x); i(y); i(width); i(height); i(arcWidth); i(arcHeight); o(color);
+    }
+
+    void line(int x1, int y1, int x2, int y2, Color color) {
+        op(LINE); i(x1); i(y1); i(x2); i(y2); o(color);
+    }
+
+    void arc(int x, int y, int width, int height, float startAngle, float arcAngle, Color color) {
+        op(ARC); i(x); i(y); i(width); i(height); f(startAngle); f(arcAngle); o(color);
+    }
+
+    void point(int x, int y) {
+        op(POINT); i(x); i(y);
+    }
+
+    void triangle(String mode, int x1, int y1, int x2, int y2, int x3, int y3) {
+        op(TRIANGLE); o(mode); i(x1); i(y1); i(x2); i(y2); i(x3); i(y3);
+    }
+
+    void clearScreen(Color color, int width, int height) {
+        op(CLEAR); o(color); i(width); i(height);
+    }
+
+    void setColor(Color color) {
+        op(SET_COLOR); o(color);
+    }
+
+    void image(Image image, int x, int y) {
+        op(IMAGE); o(image); i(x); i(y);
+    }
+
+    void image(Image image, int x, int y, int width, int height) {
+        op(IMAGE_SCALED); o(image); i(x); i(y); i(width); i(height);
+    }
+
+    void imagePart(Image image, int x, int y, int width, int height, int srcX, int srcY, int srcWidth, int srcHeight) {
+        op(IMAGE_PART); o(image); i(x); i(y); i(width); i(height); i(srcX); i(srcY); i(srcWidth); i(srcHeight);
+    }
+
+    void polygon(JesterVector2[] points, Color color) {
+        op(POLYGON); i(points.length); o(color);
+        for (JesterVector2 point : points) {
+            i((int) point.getX());
+            i((int) point.getY());
+        }
+    }
+
+    /**
+     * Draws every command with the given (not recording) graphics
+     */
+    void replay(JesterGraphics g) {
+        int in = 0, fl = 0, ob = 0;
+        for (int k = 0; k < opCount; k++) {
+            switch (ops[k]) {
+                case PUSH:
+                    g.push();
+                    break;
+                case POP:
+                    g.pop();
+                    break;
+                case ROTATE:
+                    g.rotate(floats[fl++]);
+                    break;
+                case SCALE:
+                    g.scale(floats[fl], floats[fl + 1]);
+                    fl += 2;
+                    break;
+                case TRANSLATE:
+                    g.translate(floats[fl], floats[fl + 1]);
+                    fl += 2;
+                    break;
+                case RESET_TRANSFORM:
+                    g.resetTransform();
+                    break;
+                case RECT:
+                    g.drawRect((String) objects[ob], ints[in], ints[in + 1], ints[in + 2], ints[in + 3],
+                            (Color) objects[ob + 1]);
+                    in += 4;
+                    ob += 2;
+                    break;
+                case FILL_RECT:
+                    g.fillRect(ints[in], ints[in + 1], ints[in + 2], ints[in + 3]);
+                    in += 4;
+                    break;
+                case TEXT:
+                    g.drawText((String) objects[ob], ints[in], ints[in + 1], (Color) objects[ob + 1],
+                            (Font) objects[ob + 2]);
+                    in += 2;
+                    ob += 3;
+                    break;
+                case CIRCLE:
+                    g.drawCircle(ints[in], ints[in + 1], ints[in + 2], (Color) objects[ob++]);
+                    in += 3;
+                    break;
+                case ELLIPSE:
+                    g.drawEllipse((String) objects[ob++], ints[in], ints[in + 1], ints[in + 2], ints[in + 3]);
+                    in += 4;
+                    break;
+                case ROUND_RECT:
+                    g.drawRoundRect((String) objects[ob], ints[in], ints[in + 1], ints[in + 2], ints[in + 3],
+                            ints[in + 4], ints[in + 5], (Color) objects[ob + 1]);
+                    in += 6;
+                    ob += 2;
+                    break;
+                case LINE:
+                    g.drawLine(ints[in], ints[in + 1], ints[in + 2], ints[in + 3], (Color) objects[ob++]);
+                    in += 4;
+                    break;
+                case ARC:
+                    g.drawArc(ints[in], ints[in + 1], ints[in + 2], ints[in + 3], floats[fl], floats[fl + 1],
+                            (Color) objects[ob++]);
+                    in += 4;
+                    fl += 2;
+                    break;
+                case POINT:
+                    g.drawPoint(ints[in], ints[in + 1]);
+                    in += 2;
+                    break;
+                case TRIANGLE:
+                    g.drawTriangle((String) objects[ob++], ints[in], ints[in + 1], ints[in + 2], ints[in + 3],
+                            ints[in + 4], ints[in + 5]);
+                    in += 6;
+                    break;
+                case CLEAR:
+                    g.clear((Color) objects[ob++], ints[in], ints[in + 1]);
+                    in += 2;
+                    break;
+                case SET_COLOR:
+                    g.setColor((Color) objects[ob++]);
+                    break;
+                case IMAGE:
+                    g.drawImage((Image) objects[ob++], ints[in], ints[in + 1]);
+                    in += 2;
+                    break;
+                case IMAGE_SCALED:
+                    g.drawImage((Image) objects[ob++], ints[in], ints[in + 1], ints[in + 2], ints[in + 3]);
+                    in += 4;
+                    break;
+                case IMAGE_PART:
+                    g.drawImage((Image) objects[ob++], ints[in], ints[in + 1], ints[in + 2], ints[in + 3],
+                            ints[in + 4], ints[in + 5], ints[in + 6], ints[in + 7]);
+                    in += 8;
+                    break;
+                case POLYGON: {
+                    int count = ints[in++];
+                    JesterVector2[] points = new JesterVector2[count];
+                    for (int p = 0; p < count; p++) {
+                        points[p] = new JesterVector2(ints[in], ints[in + 1]);
+                        in += 2;
+                    }
+                    g.drawPolygon(points, (Color) objects[ob++]);
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown render command " + ops[k]);
+            }
+        }
+    }
+
+    private void op(byte op) {
+        if (opCount == ops.length) ops = Arrays.copyOf(ops, opCount * 2);
+        ops[opCount++] = op;
+    }
+
+    private void i(int value) {
+        if (intCount == ints.length) ints = Arrays.copyOf(ints, intCount * 2);
+        ints[intCount++] = value;
+    }
+
+    private void f(float value) {
+        if (floatCount == floats.length) floats = Arrays.copyOf(floats, floatCount * 2);
+        floats[floatCount++] = value;
+    }
+
+    private void o(Object value) {
+        if (objectCount == objects.length) objects = Arrays.copyOf(objects, objectCount * 2);
+        objects[objectCount++] = value;
+    }
+}
@@ -0,0 +1,129 @@
+package jester;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Draws recorded frames on a separate render thread.
+ *
+ * The game loop records frame N+1 into one command list while the render thread replays
+ * frame N from the other into the window's BufferStrategy. If the render thread is still
+ * busy when the next frame is ready, the older waiting frame is dropped and reused, so a
+ * slow render never holds up the game loop.
+ */
+final class JesterRenderPipeline implements Runnable {
+    private final JesterMain canvas;
+    private final JesterGraphics replayGraphics = new JesterGraphics(); // Only used by the render thread
+    private final JesterRenderCommands[] buffers = {new JesterRenderCommands(), new JesterRenderCommands()};
+
+    // Guarded by this
+    private JesterRenderCommands pending; // Recorded, waiting for the render thread
+    private JesterRenderCommands drawing; // Being replayed by the render thread
+    private boolean running;
+    private long droppedFrames;
+
+    private Thread thread;
+
+    JesterRenderPipeline(JesterMain canvas) {
+        this.canvas = canvas;
+    }
+
+    synchronized void start() {
+        running = true;
+        thread = new Thread(this, "Jester Render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets a cleared command list to record the next frame into
+     */
+    synchronized JesterRenderCommands beginFrame() {
+        JesterRenderCommands free = null;
+        for (JesterRenderCommands buffer : buffers) {
+            if (buffer != pending && buffer != drawing) {
+                free = buffer;
+                break;
+            }
+        }
+        if (free == null) {
+            // The render thread is behind: replace the frame it hasn't started yet
+            free = pending;
+            pending = null;
+            droppedFrames++;
+        }
+        free.clear();
+        return free;
+    }
+
+    /**
+     * Hands a recorded frame to the render thread
+     */
+    synchronized void submit(JesterRenderCommands frame) {
+        pending = frame;
+        notifyAll();
+    }
+
+    /**
+     * Gets how many recorded frames were replaced before the render thread drew them
+     */
+    synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            JesterRenderCommands frame;
+            synchronized (this) {
+                while (running && pending == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) return;
+                frame = pending;
+                pending = null;
+                drawing = frame;
+            }
+
+            draw(frame);
+
+            synchronized (this) {
+                drawing = null;
+            }
+        }
+    }
+
+    private void draw(JesterRenderCommands frame) {
+        BufferStrategy bs = canvas.getBufferStrategy();
+        if (bs == null) {
+            canvas.createBufferStrategy(3); // triple buffering
+            return;
+        }
+
+        Graphics g = bs.getDrawGraphics();
+        replayGraphics.setGraphics((Graphics2D) g);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        frame.replay(replayGraphics);
+        g.dispose();
+        bs.show();
+    }
+}
@@ -0,0 +1,130 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * Places rectangles into one atlas page with the skyline bottom-left method.
+ *
+ * The page's filled area is kept as a skyline: a list of segments, each with an x, a
+ * width and the height filled so far below it. A new rectangle goes where its top edge
+ * would be lowest (then leftmost), and the segments under it are raised to its bottom.
+ */
+final class JesterSkylinePacker {
+    private final int width;
+    private final int height;
+
+    private int[] segmentX = new int[16];
+    private int[] segmentY = new int[16];
+    private int[] segmentWidth = new int[16];
+    private int segments;
+
+    private int usedHeight;
+    private int placedX, placedY;
+
+    JesterSkylinePacker(int width, int height) {
+        this.width = width;
+        this.height = height;
+        segmentX[0] = 0;
+        segmentY[0] = 0;
+        segmentWidth[0] = width;
+        segments = 1;
+    }
+
+    /**
+     * Finds room for a rectangle and takes it
+     * @return false if the rectangle doesn't fit in this page
+     */
+    boolean insert(int w, int h) {
+        int bestSegment = -1;
+        int bestX = 0, bestY = Integer.MAX_VALUE;
+
+        for (int s = 0; s < segments; s++) {
+            int x = segmentX[s];
+            if (x + w > width) break; // Segments are sorted by x
+            int y = fitHeight(s, w);
+            if (y + h > height) continue;
+            if (y < bestY) {
+                bestSegment = s;
+                bestX = x;
+                bestY = y;
+            }
+        }
+        if (bestSegment < 0) return false;
+
+        raise(bestSegment, bestX, bestY + h, w);
+        placedX = bestX;
+        placedY = bestY;
+        usedHeight = Math.max(usedHeight, bestY + h);
+        return true;
+    }
+
+    /** Left edge of the last inserted rectangle */
+    int getPlacedX() { return placedX; }
+
+    /** Top edge of the last inserted rectangle */
+    int getPlacedY() { return placedY; }
+
+    /** Lowest edge of any inserted rectangle */
+    int getUsedHeight() { return usedHeight; }
+
+    // Highest skyline point under a rectangle of width w starting at segment s
+    private int fitHeight(int s, int w) {
+        int end = segmentX[s] + w;
+        int y = 0;
+        for (int k = s; k < segments && segmentX[k] < end; k++) {
+            y = Math.max(y, segmentY[k]);
+        }
+        return y;
+    }
+
+    // Replaces the skyline under [x, x + w) with one segment at height y
+    private void raise(int s, int x, int y, int w) {
+        int end = x + w;
+        int k = s;
+        while (k < segments && segmentX[k] + segmentWidth[k] <= end) {
+            k++; // Segments completely covered
+        }
+        // k is the first segment reaching past the new one: cut off its covered part
+        if (k < segments && segmentX[k] < end) {
+            segmentWidth[k] -= end - segmentX[k];
+            segmentX[k] = end;
+        }
+
+        // Segments s..k-1 become one new segment
+        int removed = k - s;
+        int shift = 1 - removed;
+        if (segments + shift > segmentX.length) {
+            int size = segmentX.length * 2;
+            segmentX = Arrays.copyOf(segmentX, size);
+            segmentY = Arrays.copyOf(segmentY, size);
+            segmentWidth = Arrays.copyOf(segmentWidth, size);
+        }
+        if (shift != 0) {
+            System.arraycopy(segmentX, k, segmentX, k + shift, segments - k);
+            System.arraycopy(segmentY, k, segmentY, k + shift, segments - k);
+            System.arraycopy(segmentWidth, k, segmentWidth, k + shift, segments - k);
+            segments += shift;
+        }
+        segmentX[s] = x;
+        segmentY[s] = y;
+        segmentWidth[s] = w;
+
+        merge();
+    }
+
+    // Joins neighbouring segments of the same height
+    private void merge() {
+        int write = 0;
+        for (int k = 1; k < segments; k++) {
+            if (segmentY[k] == segmentY[write]) {
+                segmentWidth[write] += segmentWidth[k];
+            } else {
+                write++;
+                segmentX[write] = segmentX[k];
+                segmentY[write] = segmentY[k];
+                segmentWidth[write] = segmentWidth[k];
+            }
+        }
+        segments = write + 1;
+    }
+}
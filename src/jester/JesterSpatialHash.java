@@ -0,0 +1,140 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * A uniform-grid spatial hash broadphase.
+ * Every collider is dropped into the grid cells its bounding box touches, and only
+ * colliders that share a cell are reported as candidate pairs.
+ *
+ * Instead of a real hash map, each (cell, collider) entry is packed into a long and the
+ * entries are sorted, so colliders in the same cell end up next to each other.
+ * Nothing is allocated per step once the internal arrays have grown.
+ *
+ * Cell coordinates wrap around after 2^20 cells, so a collider never covers more than
+ * that many cells per axis, and colliders whose bounds are not finite (a body flung to
+ * infinity) are left out instead of looping forever.
+ */
+class JesterSpatialHash implements JesterBroadphase {
+    private static final int CELL_BITS = 20;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    private static final int INDEX_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private float cellSize;
+
+    // First cell covered by each collider (indexed like the collider store)
+    private int[] minCellX = new int[64];
+    private int[] minCellY = new int[64];
+
+    // Packed (cellX, cellY, colliderIndex) entries
+    private long[] entries = new long[256];
+    private int entryCount;
+
+    /**
+     * Creates a new spatial hash
+     * @param cellSize The width and height of a grid cell
+     */
+    JesterSpatialHash(float cellSize) {
+        setCellSize(cellSize);
+    }
+
+    void setCellSize(float cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    float getCellSize() {
+        return cellSize;
+    }
+
+    @Override
+    public void collectPairs(JesterColliderStore colliders, JesterPairBuffer pairs) {
+        int count = colliders.size;
+        if (count > INDEX_MASK) {
+            throw new IllegalStateException("Too many colliders for the spatial hash: " + count);
+        }
+        ensureColliderCapacity(count);
+        entryCount = 0;
+
+        float inv = 1f / cellSize;
+        float[] x = colliders.x, y = colliders.y, w = colliders.width, h = colliders.height;
+        for (int i = 0; i < count; i++) {
+            float right = x[i] + w[i];
+            float bottom = y[i] + h[i];
+            if (!Float.isFinite(x[i]) || !Float.isFinite(y[i]) || !Float.isFinite(right) || !Float.isFinite(bottom)) {
+                continue;
+            }
+            int x0 = (int) Math.floor(x[i] * inv);
+            int y0 = (int) Math.floor(y[i] * inv);
+            minCellX[i] = x0;
+            minCellY[i] = y0;
+
+            // Count cells from the first one, so huge bounds can't overflow the loop
+            int spanX = cellSpan(x0, (int) Math.floor(right * inv));
+            int spanY = cellSpan(y0, (int) Math.floor(bottom * inv));
+            for (int dx = 0; dx <= spanX; dx++) {
+                for (int dy = 0; dy <= spanY; dy++) {
+                    addEntry(pack(x0 + dx, y0 + dy, i));
+                }
+            }
+        }
+
+        // Group entries by cell (and by collider index inside a cell)
+        Arrays.sort(entries, 0, entryCount);
+
+        int start = 0;
+        while (start < entryCount) {
+            long cell = entries[start] >>> INDEX_BITS;
+            int end = start + 1;
+            while (end < entryCount && (entries[end] >>> INDEX_BITS) == cell) {
+                end++;
+            }
+
+            if (end - start > 1) {
+                int cellX = (int) (cell >>> CELL_BITS) & CELL_MASK;
+                int cellY = (int) cell & CELL_MASK;
+                for (int p = start; p < end; p++) {
+                    int a = (int) (entries[p] & INDEX_MASK);
+                    for (int q = p + 1; q < end; q++) {
+                        int b = (int) (entries[q] & INDEX_MASK);
+                        // Two colliders can share several cells; only report the pair
+                        // from the first cell of their overlap so it is tested once
+                        int firstX = Math.max(minCellX[a], minCellX[b]) & CELL_MASK;
+                        int firstY = Math.max(minCellY[a], minCellY[b]) & CELL_MASK;
+                        if (firstX == cellX && firstY == cellY) {
+                            pairs.add(a, b);
+                        }
+                    }
+                }
+            }
+            start = end;
+        }
+    }
+
+    private static int cellSpan(int first, int last) {
+        return (int) Math.max(0, Math.min((long) last - first, CELL_MASK));
+    }
+
+    private static long pack(int cellX, int cellY, int index) {
+        return ((long) (cellX & CELL_MASK) << (CELL_BITS + INDEX_BITS))
+                | ((long) (cellY & CELL_MASK) << INDEX_BITS)
+                | index;
+    }
+
+    private void addEntry(long entry) {
+        if (entryCount == entries.length) {
+            entries = Arrays.copyOf(entries, entryCount * 2);
+        }
+        entries[entryCount++] = entry;
+    }
+
+    private void ensureColliderCapacity(int count) {
+        if (minCellX.length >= count) return;
+        int size = Math.max(count, minCellX.length * 2);
+        minCellX = Arrays.copyOf(minCellX, size);
+        minCellY = Arrays.copyOf(minCellY, size);
+    }
+}
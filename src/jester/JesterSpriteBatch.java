@@ -0,0 +1,432 @@
+package jester;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+
+/**
+ * Draws many sprites, atlas regions and rectangles with as few Graphics2D state changes as possible.
+ *
+ * Draw calls between {@link #begin()} and {@link #end(JesterGraphics)} are only queued.
+ * At the end they are sorted by layer, then by image or color, and drawn in runs: one
+ * setColor per run of same-colored rectangles, and sprites sharing an image drawn one
+ * after the other. Lower layers are drawn first.
+ *
+ * <pre>
+ * batch.begin();
+ * for (Enemy enemy : enemies) {
+ *     batch.draw(enemySheet, enemy.x, enemy.y, 1);
+ * }
+ * batch.fillRect(0, 0, 800, 32, Color.DARK_GRAY, 2);
+ * batch.end(g);
+ * </pre>
+ *
+ * With the default {@link SortMode#STATE}, sprites on the same layer can be drawn in a
+ * different order than they were queued. Put sprites that overlap on different layers,
+ * or use {@link SortMode#ORDER}.
+ *
+ * Commands are kept in primitive arrays that are reused, so a batch does not allocate
+ * once its arrays have grown to the frame's size.
+ */
+public class JesterSpriteBatch {
+
+    /**
+     * How commands on the same layer are ordered
+     */
+    public enum SortMode {
+        STATE, // Grouped by image or color: fewest state changes
+        ORDER  // In the order they were queued: exact overlap, more state changes
+    }
+
+    public static final int MIN_LAYER = -16384;
+    public static final int MAX_LAYER = 16383;
+
+    private static final byte SPRITE = 0;
+    private static final byte RECT = 1;
+    private static final byte REGION = 2;
+    private static final int INDEX_BITS = 24;
+    private static final int MAX_COMMANDS = 1 << INDEX_BITS;
+
+    private SortMode sortMode = SortMode.STATE;
+    private boolean drawing;
+
+    // Queued commands
+    private byte[] kind = new byte[256];
+    private float[] x = new float[256], y = new float[256];
+    private float[] width = new float[256], height = new float[256];
+    private float[] rotation = new float[256];
+    private int[] layer = new int[256];
+    private int[] srcX = new int[256], srcY = new int[256];     // Atlas regions only
+    private int[] srcWidth = new int[256], srcHeight = new int[256];
+    private int[] state = new int[256];     // Index into states
+    private long[] keys = new long[256];
+    private int count;
+
+    // Images and colors used this frame, found by identity in an open-addressing table
+    private Object[] tableKeys = new Object[128];
+    private int[] tableIds = new int[128];
+    private Object[] states = new Object[64];
+    private int stateCount;
+    private Object lastState;
+    private int lastStateId;
+
+    // Statistics from the last end
+    private int spriteCount;
+    private int drawCalls;
+    private int stateChanges;
+    private int batchCount;
+
+    /**
+     * Sets how commands on the same layer are ordered
+     * @param sortMode STATE (default) or ORDER
+     */
+    public void setSortMode(SortMode sortMode) {
+        this.sortMode = sortMode;
+    }
+
+    public SortMode getSortMode() { return sortMode; }
+
+    /**
+     * Starts queueing a new frame of commands
+     */
+    public void begin() {
+        if (drawing) throw new IllegalStateException("end() must be called before begin()");
+        drawing = true;
+        count = 0;
+    }
+
+    /**
+     * Queues an image at its own size
+     * @param image The image
+     * @param x Left edge
+     * @param y Top edge
+     * @param layer The layer (lower layers are drawn first)
+     */
+    public void draw(Image image, float x, float y, int layer) {
+        add(SPRITE, image, x, y, -1, -1, 0, layer);
+    }
+
+    /**
+     * Queues an image on layer 0 at its own size
+     * @param image The image
+     * @param x Left edge
+     * @param y Top edge
+     */
+    public void draw(Image image, float x, float y) {
+        add(SPRITE, image, x, y, -1, -1, 0, 0);
+    }
+
+    /**
+     * Queues an image scaled to a size and rotated around its center
+     * @param image The image
+     * @param x Left edge
+     * @param y Top edge
+     * @param width Drawn width
+     * @param height Drawn height
+     * @param rotation Rotation in radians
+     * @param layer The layer (lower layers are drawn first)
+     */
+    public void draw(Image image, float x, float y, float width, float height, float rotation, int layer) {
+        add(SPRITE, image, x, y, width, height, rotation, layer);
+    }
+
+    /**
+     * Queues a texture atlas region at its own size. All regions of one atlas page
+     * on a layer are drawn in one run.
+     * @param region The region
+     * @param x Left edge
+     * @param y Top edge
+     * @param layer The layer (lower layers are drawn first)
+     */
+    public void draw(JesterTextureRegion region, float x, float y, int layer) {
+        draw(region, x, y, region.getWidth(), region.getHeight(), 0, layer);
+    }
+
+    /**
+     * Queues a texture atlas region scaled to a size and rotated around its center
+     * @param region The region
+     * @param x Left edge
+     * @param y Top edge
+     * @param width Drawn width
+     * @param height Drawn height
+     * @param rotation Rotation in radians
+     * @param layer The layer (lower layers are drawn first)
+     */
+    public void draw(JesterTextureRegion region, float x, float y, float width, float height, float rotation, int layer) {
+        int i = add(REGION, region.getPage(), x, y, width, height, rotation, layer);
+        if (i < 0) return;
+        srcX[i] = region.getX();
+        srcY[i] = region.getY();
+        srcWidth[i] = region.getWidth();
+        srcHeight[i] = region.getHeight();
+    }
+
+    /**
+     * Queues a filled rectangle
+     * @param x Left edge
+     * @param y Top edge
+     * @param width The width
+     * @param height The height
+     * @param color The fill color
+     * @param layer The layer (lower layers are drawn first)
+     */
+    public void fillRect(float x, float y, float width, float height, Color color, int layer) {
+        add(RECT, color, x, y, width, height, 0, layer);
+    }
+
+    /**
+     * Sorts and draws everything queued since {@link #begin()}.
+     * Works while JesterGraphics is recording for the render thread too; the commands are
+     * then recorded in sorted order.
+     * @param g The graphics to draw with
+     */
+    public void end(JesterGraphics g) {
+        if (!drawing) throw new IllegalStateException("begin() must be called before end()");
+        drawing = false;
+
+        boolean byState = (sortMode == SortMode.STATE);
+        for (int i = 0; i < count; i++) {
+            long key = (long) (layer[i] - MIN_LAYER) << 48 | i;
+            if (byState) key |= (long) state[i] << INDEX_BITS;
+            keys[i] = key;
+        }
+        Arrays.sort(keys, 0, count);
+
+        spriteCount = count;
+        drawCalls = 0;
+        stateChanges = 0;
+        batchCount = 0;
+        if (g.isRecording()) {
+            flushRecorded(g);
+        } else {
+            flushDirect(g.getGraphics());
+        }
+
+        // Don't keep images alive until the next frame
+        Arrays.fill(states, 0, stateCount, null);
+        Arrays.fill(tableKeys, null);
+        stateCount = 0;
+        lastState = null;
+    }
+
+    /**
+     * Gets how many commands the last {@link #end(JesterGraphics)} drew
+     * @return The number of sprites and rectangles
+     */
+    public int getSpriteCount() { return spriteCount; }
+
+    /**
+     * Gets how many Graphics2D draw and fill calls the last end made
+     * @return The number of draw calls
+     */
+    public int getDrawCalls() { return drawCalls; }
+
+    /**
+     * Gets how many times the last end switched to another color or image, or changed the transform
+     * @return The number of state changes
+     */
+    public int getStateChanges() { return stateChanges; }
+
+    /**
+     * Gets how many runs of commands sharing one image or color the last end drew
+     * @return The number of runs
+     */
+    public int getBatchCount() { return batchCount; }
+
+    // Returns the command's index, or -1 if nothing was queued
+    private int add(byte type, Object source, float x, float y, float width, float height, float rotation, int layer) {
+        if (!drawing) throw new IllegalStateException("begin() must be called before drawing");
+        if (source == null) return -1;
+        if (count == MAX_COMMANDS) throw new IllegalStateException("A sprite batch holds at most " + MAX_COMMANDS + " commands");
+        if (count == kind.length) grow();
+
+        int i = count++;
+        kind[i] = type;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.width[i] = width;
+        this.height[i] = height;
+        this.rotation[i] = rotation;
+        this.layer[i] = Math.max(MIN_LAYER, Math.min(MAX_LAYER, layer));
+        state[i] = stateId(source);
+        return i;
+    }
+
+    // Numbers every image and color the first time it is used this frame
+    private int stateId(Object source) {
+        if (source == lastState) return lastStateId;
+        int mask = tableKeys.length - 1;
+        int slot = System.identityHashCode(source) & mask;
+        while (tableKeys[slot] != null && tableKeys[slot] != source) {
+            slot = (slot + 1) & mask;
+        }
+
+        int id;
+        if (tableKeys[slot] == source) {
+            id = tableIds[slot];
+        } else {
+            id = stateCount;
+            if (stateCount == states.length) states = Arrays.copyOf(states, stateCount * 2);
+            states[stateCount++] = source;
+            tableKeys[slot] = source;
+            tableIds[slot] = id;
+            if (stateCount * 2 > tableKeys.length) growTable();
+        }
+        lastState = source;
+        lastStateId = id;
+        return id;
+    }
+
+    // Keeps the table at most half full so lookups stay short
+    private void growTable() {
+        tableKeys = new Object[tableKeys.length * 2];
+        tableIds = new int[tableKeys.length];
+        int mask = tableKeys.length - 1;
+        for (int id = 0; id < stateCount; id++) {
+            int slot = System.identityHashCode(states[id]) & mask;
+            while (tableKeys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            tableKeys[slot] = states[id];
+            tableIds[slot] = id;
+        }
+    }
+
+    private void flushDirect(Graphics2D g) {
+        AffineTransform base = g.getTransform();
+        Color color = g.getColor();
+        Image previousImage = null;
+        int previousState = -1;
+
+        for (int k = 0; k < count; k++) {
+            int i = (int) (keys[k] & (MAX_COMMANDS - 1));
+            Object source = states[state[i]];
+            if (state[i] != previousState) {
+                batchCount++;
+                previousState = state[i];
+            }
+
+            if (kind[i] == RECT) {
+                if (source != color) {
+                    color = (Color) source;
+                    g.setColor(color);
+                    stateChanges++;
+                }
+                g.fillRect(Math.round(x[i]), Math.round(y[i]), Math.round(width[i]), Math.round(height[i]));
+            } else {
+                Image image = (Image) source;
+                if (image != previousImage) {
+                    previousImage = image;
+                    stateChanges++;
+                }
+                if (rotation[i] != 0) {
+                    float w = spriteWidth(i, image), h = spriteHeight(i, image);
+                    g.translate(x[i] + w / 2, y[i] + h / 2);
+                    g.rotate(rotation[i]);
+                    drawDirect(g, i, image, Math.round(-w / 2), Math.round(-h / 2), Math.round(w), Math.round(h));
+                    g.setTransform(base);
+                    stateChanges += 2;
+                } else if (kind[i] == REGION) {
+                    drawDirect(g, i, image, Math.round(x[i]), Math.round(y[i]), Math.round(width[i]), Math.round(height[i]));
+                } else if (width[i] < 0) {
+                    g.drawImage(image, Math.round(x[i]), Math.round(y[i]), null);
+                } else {
+                    g.drawImage(image, Math.round(x[i]), Math.round(y[i]),
+                            Math.round(width[i]), Math.round(height[i]), null);
+                }
+            }
+            drawCalls++;
+        }
+    }
+
+    // Same commands through the JesterGraphics recorder, so they replay on the render thread
+    private void flushRecorded(JesterGraphics g) {
+        Color color = null;
+        Image previousImage = null;
+        int previousState = -1;
+
+        for (int k = 0; k < count; k++) {
+            int i = (int) (keys[k] & (MAX_COMMANDS - 1));
+            Object source = states[state[i]];
+            if (state[i] != previousState) {
+                batchCount++;
+                previousState = state[i];
+            }
+
+            if (kind[i] == RECT) {
+                if (source != color) {
+                    color = (Color) source;
+                    g.setColor(color);
+                    stateChanges++;
+                }
+                g.fillRect(Math.round(x[i]), Math.round(y[i]), Math.round(width[i]), Math.round(height[i]));
+            } else {
+                Image image = (Image) source;
+                if (image != previousImage) {
+                    previousImage = image;
+                    stateChanges++;
+                }
+                if (rotation[i] != 0) {
+                    float w = spriteWidth(i, image), h = spriteHeight(i, image);
+                    g.push();
+                    g.translate(x[i] + w / 2, y[i] + h / 2);
+                    g.rotate(rotation[i]);
+                    drawRecorded(g, i, image, Math.round(-w / 2), Math.round(-h / 2), Math.round(w), Math.round(h));
+                    g.pop();
+                    stateChanges += 2;
+                } else if (kind[i] == REGION) {
+                    drawRecorded(g, i, image, Math.round(x[i]), Math.round(y[i]), Math.round(width[i]), Math.round(height[i]));
+                } else if (width[i] < 0) {
+                    g.drawImage(image, Math.round(x[i]), Math.round(y[i]));
+                } else {
+                    g.drawImage(image, Math.round(x[i]), Math.round(y[i]), Math.round(width[i]), Math.round(height[i]));
+                }
+            }
+            drawCalls++;
+        }
+    }
+
+    // A whole image or, for regions, its part of the atlas page
+    private void drawDirect(Graphics2D g, int i, Image image, int dx, int dy, int w, int h) {
+        if (kind[i] == REGION) {
+            g.drawImage(image, dx, dy, dx + w, dy + h, srcX[i], srcY[i], srcX[i] + srcWidth[i], srcY[i] + srcHeight[i], null);
+        } else {
+            g.drawImage(image, dx, dy, w, h, null);
+        }
+    }
+
+    private void drawRecorded(JesterGraphics g, int i, Image image, int dx, int dy, int w, int h) {
+        if (kind[i] == REGION) {
+            g.drawImage(image, dx, dy, w, h, srcX[i], srcY[i], srcWidth[i], srcHeight[i]);
+        } else {
+            g.drawImage(image, dx, dy, w, h);
+        }
+    }
+
+    private float spriteWidth(int i, Image image) {
+        return (width[i] >= 0) ? width[i] : Math.max(0, image.getWidth(null));
+    }
+
+    private float spriteHeight(int i, Image image) {
+        return (height[i] >= 0) ? height[i] : Math.max(0, image.getHeight(null));
+    }
+
+    private void grow() {
+        int size = kind.length * 2;
+        kind = Arrays.copyOf(kind, size);
+        x = Arrays.copyOf(x, size);
+        y = Arrays.copyOf(y, size);
+        width = Arrays.copyOf(width, size);
+        height = Arrays.copyOf(height, size);
+        rotation = Arrays.copyOf(rotation, size);
+        layer = Arrays.copyOf(layer, size);
+        srcX = Arrays.copyOf(srcX, size);
+        srcY = Arrays.copyOf(srcY, size);
+        srcWidth = Arrays.copyOf(srcWidth, size);
+        srcHeight = Arrays.copyOf(srcHeight, size);
+        state = Arrays.copyOf(state, size);
+        keys = Arrays.copyOf(keys, size);
+    }
+}
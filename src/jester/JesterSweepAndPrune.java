@@ -0,0 +1,104 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * A sort-and-sweep broadphase.
+ * Colliders are kept sorted by the left edge of their bounding box between steps.
+ * Because most colliders only move a little each frame, the list is already almost
+ * sorted and an insertion sort fixes it in close to linear time. A single sweep along
+ * X then reports every pair whose X and Y ranges overlap.
+ */
+class JesterSweepAndPrune implements JesterBroadphase {
+    // Collider indices sorted by minX, kept from one step to the next
+    private int[] order = new int[64];
+    private int orderCount;
+
+    // Bounding boxes of this step (indexed like the collider store)
+    private float[] minX = new float[64];
+    private float[] maxX = new float[64];
+    private float[] minY = new float[64];
+    private float[] maxY = new float[64];
+
+    @Override
+    public void collectPairs(JesterColliderStore colliders, JesterPairBuffer pairs) {
+        int count = colliders.size;
+        ensureCapacity(count);
+
+        // New colliders are appended; the insertion sort moves them into place
+        while (orderCount < count) {
+            order[orderCount] = orderCount;
+            orderCount++;
+        }
+
+        float[] x = colliders.x, y = colliders.y, w = colliders.width, h = colliders.height;
+        for (int i = 0; i < count; i++) {
+            minX[i] = x[i];
+            maxX[i] = x[i] + w[i];
+            minY[i] = y[i];
+            maxY[i] = y[i] + h[i];
+        }
+
+        insertionSort();
+
+        for (int p = 0; p < count; p++) {
+            int a = order[p];
+            float right = maxX[a];
+            for (int q = p + 1; q < count; q++) {
+                int b = order[q];
+                if (minX[b] > right) break; // Everything after this starts further right
+
+                if (minY[b] <= maxY[a] && minY[a] <= maxY[b]) {
+                    if (a < b) {
+                        pairs.add(a, b);
+                    } else {
+                        pairs.add(b, a);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void colliderRemoved(int index, int last) {
+        if (index >= orderCount) return; // Not sorted in yet
+
+        if (last >= orderCount) {
+            // The moved collider was not sorted in yet: it takes over the removed entry
+            // and the insertion sort moves it to its place next step
+            return;
+        }
+
+        // Drop the removed entry and rename the moved one
+        int write = 0;
+        for (int p = 0; p < orderCount; p++) {
+            int entry = order[p];
+            if (entry == index) continue;
+            order[write++] = (entry == last) ? index : entry;
+        }
+        orderCount = write;
+    }
+
+    private void insertionSort() {
+        for (int i = 1; i < orderCount; i++) {
+            int index = order[i];
+            float key = minX[index];
+            int j = i - 1;
+            while (j >= 0 && minX[order[j]] > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (order.length >= count) return;
+        int size = Math.max(count, order.length * 2);
+        order = Arrays.copyOf(order, size);
+        minX = Arrays.copyOf(minX, size);
+        maxX = Arrays.copyOf(maxX, size);
+        minY = Arrays.copyOf(minY, size);
+        maxY = Arrays.copyOf(maxY, size);
+    }
+}
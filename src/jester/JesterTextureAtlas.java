@@ -0,0 +1,194 @@
+package jester;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Packs many small images into a few large ones (pages) at load time.
+ *
+ * Drawing thousands of sprites from one image is much faster than from thousands of
+ * separate images: Java2D can keep a single page cached in video memory, and a
+ * {@link JesterSpriteBatch} draws all regions of a page in one run.
+ *
+ * <pre>
+ * JesterTextureAtlas atlas = new JesterTextureAtlas();
+ * atlas.add("player", JesterAssets.loadImage("assets/player.png"));
+ * atlas.add("coin", JesterAssets.loadImage("assets/coin.png"));
+ * atlas.pack();
+ * g.drawRegion(atlas.getRegion("player"), 100, 200);
+ * </pre>
+ */
+public class JesterTextureAtlas {
+    private final int pageWidth;
+    private final int pageHeight;
+    private int padding = 1; // Empty pixels between regions, so filtering doesn't bleed in neighbours
+
+    private final List<String> names = new ArrayList<>();
+    private final Set<String> nameSet = new HashSet<>(); // To refuse a name that is added twice
+    private final List<Image> images = new ArrayList<>();
+    private boolean packed;
+
+    private final Map<String, JesterTextureRegion> regions = new HashMap<>();
+    private final List<BufferedImage> pages = new ArrayList<>();
+
+    /**
+     * Creates an atlas with 1024x1024 pages
+     */
+    public JesterTextureAtlas() {
+        this(1024, 1024);
+    }
+
+    /**
+     * Creates an atlas
+     * @param pageWidth Width of each page
+     * @param pageHeight Largest height of each page (the last page is cut to what it uses)
+     */
+    public JesterTextureAtlas(int pageWidth, int pageHeight) {
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+    }
+
+    /**
+     * Sets how many empty pixels are left between regions
+     * @param padding The padding (default 1)
+     */
+    public void setPadding(int padding) {
+        this.padding = Math.max(0, padding);
+    }
+
+    public int getPadding() { return padding; }
+
+    /**
+     * Adds an image to pack. Call {@link #pack()} once all images are added.
+     * @param name The name to look the region up with
+     * @param image The image (must be fully loaded, like the ones from JesterAssets)
+     * @throws IllegalArgumentException if the name was already added, or the image doesn't fit
+     */
+    public void add(String name, Image image) {
+        if (packed) throw new IllegalStateException("The atlas is already packed");
+        if (nameSet.contains(name)) {
+            throw new IllegalArgumentException("The atlas already has an image named '" + name + "'");
+        }
+        int width = image.getWidth(null);
+        int height = image.getHeight(null);
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Image '" + name + "' is not loaded yet");
+        }
+        if (width > pageWidth || height > pageHeight) {
+            throw new IllegalArgumentException("Image '" + name + "' (" + width + "x" + height
+                    + ") is larger than a page (" + pageWidth + "x" + pageHeight + ")");
+        }
+        names.add(name);
+        nameSet.add(name);
+        images.add(image);
+    }
+
+    /**
+     * Places all added images on pages and copies them there.
+     * Taller images are placed first, which packs the skyline tighter.
+     */
+    public void pack() {
+        if (packed) throw new IllegalStateException("The atlas is already packed");
+        packed = true;
+
+        Integer[] order = new Integer[images.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> -images.get(i).getHeight(null))
+                .thenComparingInt(i -> -images.get(i).getWidth(null)));
+
+        // Place every image on the first page it fits on
+        List<JesterSkylinePacker> packers = new ArrayList<>();
+        int[] page = new int[order.length];
+        int[] placedX = new int[order.length];
+        int[] placedY = new int[order.length];
+        for (int i : order) {
+            int w = Math.min(images.get(i).getWidth(null) + padding, pageWidth);
+            int h = Math.min(images.get(i).getHeight(null) + padding, pageHeight);
+            int p = 0;
+            while (p < packers.size() && !packers.get(p).insert(w, h)) {
+                p++;
+            }
+            if (p == packers.size()) {
+                JesterSkylinePacker packer = new JesterSkylinePacker(pageWidth, pageHeight);
+                packer.insert(w, h);
+                packers.add(packer);
+            }
+            page[i] = p;
+            placedX[i] = packers.get(p).getPlacedX();
+            placedY[i] = packers.get(p).getPlacedY();
+        }
+
+        // Copy the images into the pages
+        Graphics2D[] graphics = new Graphics2D[packers.size()];
+        for (int p = 0; p < packers.size(); p++) {
+            BufferedImage image = createPage(pageWidth, Math.max(1, packers.get(p).getUsedHeight()));
+            pages.add(image);
+            graphics[p] = image.createGraphics();
+            graphics[p].setComposite(AlphaComposite.Src);
+        }
+        for (int i = 0; i < images.size(); i++) {
+            Image image = images.get(i);
+            graphics[page[i]].drawImage(image, placedX[i], placedY[i], null);
+            regions.put(names.get(i), new JesterTextureRegion(names.get(i), pages.get(page[i]),
+                    placedX[i], placedY[i], image.getWidth(null), image.getHeight(null)));
+        }
+        for (Graphics2D g : graphics) {
+            g.dispose();
+        }
+
+        // The pages hold copies now
+        names.clear();
+        images.clear();
+    }
+
+    /**
+     * Gets a packed region by name
+     * @param name The name given to {@link #add(String, Image)}
+     * @return The region, or null if there is none with that name (or the atlas isn't packed yet)
+     */
+    public JesterTextureRegion getRegion(String name) {
+        return regions.get(name);
+    }
+
+    /**
+     * Gets how many regions were packed
+     * @return The region count
+     */
+    public int getRegionCount() { return regions.size(); }
+
+    /**
+     * Gets how many pages the images were packed into
+     * @return The page count
+     */
+    public int getPageCount() { return pages.size(); }
+
+    /**
+     * Gets one of the pages, for example to check how well the images were packed
+     * @param index The page index
+     * @return The page image
+     */
+    public BufferedImage getPage(int index) { return pages.get(index); }
+
+    public boolean isPacked() { return packed; }
+
+    // Images made for the screen can be cached in video memory by Java2D
+    private static BufferedImage createPage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
@@ -0,0 +1,39 @@
+package jester;
+
+import java.awt.Image;
+
+/**
+ * A named rectangle of a texture atlas page: one sprite packed into a shared image.
+ * Draw it with {@link JesterGraphics#drawRegion(JesterTextureRegion, int, int)} or
+ * {@link JesterSpriteBatch#draw(JesterTextureRegion, float, float, int)}.
+ */
+public class JesterTextureRegion {
+    private final String name;
+    private final Image page;
+    private final int x, y, width, height;
+
+    /**
+     * Creates a region of an image
+     * @param name The region's name
+     * @param page The image holding the region
+     * @param x Left edge in the image
+     * @param y Top edge in the image
+     * @param width The width
+     * @param height The height
+     */
+    public JesterTextureRegion(String name, Image page, int x, int y, int width, int height) {
+        this.name = name;
+        this.page = page;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    public String getName() { return name; }
+    public Image getPage() { return page; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+}
@@ -0,0 +1,186 @@
+package jester;
+
+import java.awt.Color;
+
+/**
+ * A grid of solid and empty tiles that RIGID bodies collide with.
+ * Use it for tile-based levels instead of one STATIC collider per tile: each body only
+ * looks at the few cells its bounding box covers, no matter how big the level is.
+ *
+ * Each cell holds a byte. 0 means empty and any other value means solid, so games can
+ * keep their own tile kinds in it. Bodies (circles too) collide with tiles by their
+ * bounding box. Create layers with {@link JesterPhysics#newTileLayer}.
+ */
+public class JesterTileLayer {
+    private final JesterPhysics world;
+    private final float x, y;
+    private final int columns, rows;
+    private final float tileSize;
+    private final byte[] tiles; // Row by row
+    private String collisionClass = "Default";
+    private int collisionClassId;
+
+    JesterTileLayer(JesterPhysics world, float x, float y, int columns, int rows, float tileSize) {
+        if (columns <= 0 || rows <= 0 || tileSize <= 0) {
+            throw new IllegalArgumentException("A tile layer needs a positive size");
+        }
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.columns = columns;
+        this.rows = rows;
+        this.tileSize = tileSize;
+        this.tiles = new byte[columns * rows];
+    }
+
+    /**
+     * Sets a tile. Bodies resting on a tile that becomes empty wake up and fall.
+     * @param column The column (0 is the left edge of the layer)
+     * @param row The row (0 is the top edge of the layer)
+     * @param value 0 for empty, anything else (up to 255) for solid
+     */
+    public void setTile(int column, int row, int value) {
+        if (!inside(column, row)) return;
+        byte tile = (byte) value;
+        int i = row * columns + column;
+        if (tiles[i] == tile) return;
+        tiles[i] = tile;
+
+        float tileX = x + column * tileSize;
+        float tileY = y + row * tileSize;
+        world.wakeArea(tileX, tileY, tileX + tileSize, tileY + tileSize);
+    }
+
+    /**
+     * Gets a tile
+     * @param column The column
+     * @param row The row
+     * @return The tile value (0 to 255), or 0 outside the layer
+     */
+    public int getTile(int column, int row) {
+        return inside(column, row) ? tiles[row * columns + column] & 0xFF : 0;
+    }
+
+    /**
+     * Checks if a tile is solid
+     * @param column The column
+     * @param row The row
+     * @return true if the tile is solid (outside the layer is empty)
+     */
+    public boolean isSolid(int column, int row) {
+        return inside(column, row) && tiles[row * columns + column] != 0;
+    }
+
+    /**
+     * Checks if the tile under a point is solid (handy for ground checks)
+     * @param px X position in the world
+     * @param py Y position in the world
+     * @return true if the point is inside a solid tile
+     */
+    public boolean isSolidAt(float px, float py) {
+        return isSolid(getColumn(px), getRow(py));
+    }
+
+    /**
+     * Gets the column that contains an X position
+     * @param px X position in the world
+     * @return The column (can be outside the layer)
+     */
+    public int getColumn(float px) {
+        return (int) Math.floor((px - x) / tileSize);
+    }
+
+    /**
+     * Gets the row that contains a Y position
+     * @param py Y position in the world
+     * @return The row (can be outside the layer)
+     */
+    public int getRow(float py) {
+        return (int) Math.floor((py - y) / tileSize);
+    }
+
+    /**
+     * Sets the collision class of all tiles in this layer
+     * @param className The name of the collision class
+     */
+    public void setCollisionClass(String className) {
+        this.collisionClassId = world.tileLayerClassId(className);
+        this.collisionClass = className;
+    }
+
+    public String getCollisionClass() { return collisionClass; }
+    public float getX() { return x; }
+    public float getY() { return y; }
+    public int getColumns() { return columns; }
+    public int getRows() { return rows; }
+    public float getTileSize() { return tileSize; }
+
+    int getCollisionClassId() { return collisionClassId; }
+
+    void setCollisionClassId(int id) { this.collisionClassId = id; }
+
+    /**
+     * Pushes a RIGID body out of every solid tile it overlaps and stops it moving into them.
+     * A tile side that touches another solid tile is never used to push out of, so bodies
+     * slide along rows and columns of tiles without catching on the seams.
+     * @return true if the body was moved
+     */
+    boolean resolve(JesterColliderStore store, int i) {
+        float w = store.width[i];
+        float h = store.height[i];
+        int c0 = Math.max(getColumn(store.x[i]), 0);
+        int r0 = Math.max(getRow(store.y[i]), 0);
+        // Cells the body only touches at its right or bottom edge don't overlap it
+        int c1 = Math.min((int) Math.ceil((store.x[i] + w - x) / tileSize) - 1, columns - 1);
+        int r1 = Math.min((int) Math.ceil((store.y[i] + h - y) / tileSize) - 1, rows - 1);
+
+        boolean moved = false;
+        for (int row = r0; row <= r1; row++) {
+            for (int column = c0; column <= c1; column++) {
+                if (tiles[row * columns + column] == 0) continue;
+
+                // Earlier pushes may have moved the body off this tile
+                float bx0 = store.x[i], by0 = store.y[i];
+                float tx0 = x + column * tileSize, ty0 = y + row * tileSize;
+                float overlapX = Math.min(bx0 + w, tx0 + tileSize) - Math.max(bx0, tx0);
+                float overlapY = Math.min(by0 + h, ty0 + tileSize) - Math.max(by0, ty0);
+                if (overlapX <= 0 || overlapY <= 0) continue;
+
+                // Leave through the side the body's center is on, unless another tile covers it
+                int dirX = (bx0 + w * 0.5f < tx0 + tileSize * 0.5f) ? -1 : 1;
+                int dirY = (by0 + h * 0.5f < ty0 + tileSize * 0.5f) ? -1 : 1;
+                boolean openX = !isSolid(column + dirX, row);
+                boolean openY = !isSolid(column, row + dirY);
+                boolean pushX = (openX == openY) ? overlapX < overlapY : openX;
+
+                if (pushX) {
+                    store.x[i] = bx0 + dirX * overlapX;
+                    if (store.velocityX[i] * dirX < 0) store.velocityX[i] = 0;
+                } else {
+                    store.y[i] = by0 + dirY * overlapY;
+                    if (store.velocityY[i] * dirY < 0) store.velocityY[i] = 0;
+                }
+                moved = true;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Draws the solid tiles (for debugging)
+     * @param g The graphics context
+     */
+    public void draw(JesterGraphics g) {
+        int size = (int) tileSize;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                if (tiles[row * columns + column] == 0) continue;
+                g.drawRect("line", (int) (x + column * tileSize), (int) (y + row * tileSize), size, size, Color.GREEN);
+            }
+        }
+    }
+
+    private boolean inside(int column, int row) {
+        return column >= 0 && row >= 0 && column < columns && row < rows;
+    }
+}
@@ -1,6 +1,30 @@
 package jester;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures frame times. Besides the last delta and the one-second average, every frame
+ * goes into a histogram, so hitches that an average hides still show up in
+ * {@link #getPercentile(double)}, in the count of frames over budget, and in how many
+ * of those frames had a garbage collection running.
+ *
+ * The histogram has a fixed size: buckets are 1 microsecond wide below 8 microseconds,
+ * then every doubling of time is split into 8 buckets (about 12% precision) up to
+ * about half an hour. Stepping the timer does not allocate.
+ *
+ * The game loop ({@link JesterMain} and {@link JesterHeadless}) steps {@code Jester.timer}
+ * once per frame. Games that still call {@link #step()} themselves keep working: once the
+ * loop drives the timer, those calls do nothing, so the delta and FPS are not halved.
+ */
 public class JesterTimer {
+    private static final int SUB_BUCKETS = 8;   // Buckets per doubling of time
+    private static final int SUB_BITS = 3;      // log2(SUB_BUCKETS)
+    private static final int MAX_BIT = 30;      // Longest frame kept apart: 2^31 microseconds
+    private static final int BUCKETS = (MAX_BIT - SUB_BITS + 2) * SUB_BUCKETS;
+
     private long lastFrameTime;
     private long startTime;
     private double delta;
@@ -8,21 +32,87 @@ public class JesterTimer {
     private int frameCount;
     private double totalDelta;
 
+    // Histogram of frame times in microseconds, since the last reset
+    private final long[] buckets = new long[BUCKETS];
+    private long histogramCount;
+    private long maxMicros;
+
+    private boolean loopDriven; // Stepped by the game loop, so step() calls from game code are ignored
+
+    private double frameBudget = 1.0 / 60.0; // Seconds
+    private long overBudgetFrames;
+    private long hitchFrames;
+
+    // Garbage collection
+    private final GarbageCollectorMXBean[] collectors;
+    private long lastGcCount;
+    private long lastGcTime;
+    private long frameGcCount;
+    private long frameGcTime;
+    private long gcFrames;
+    private long overBudgetGcFrames;
+
     public JesterTimer() {
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        collectors = beans.toArray(new GarbageCollectorMXBean[0]);
+        reset();
+    }
+
+    /**
+     * Starts measuring from now and clears the histogram and all counters.
+     * Call it when frames start (after loading), so the loading time isn't counted as a frame.
+     */
+    public void reset() {
         lastFrameTime = System.nanoTime();
         startTime = lastFrameTime;
         delta = 0;
         averageDelta = 0;
         frameCount = 0;
         totalDelta = 0;
+
+        Arrays.fill(buckets, 0);
+        histogramCount = 0;
+        maxMicros = 0;
+        overBudgetFrames = 0;
+        hitchFrames = 0;
+
+        lastGcCount = gcCount();
+        lastGcTime = gcTime();
+        frameGcCount = 0;
+        frameGcTime = 0;
+        gcFrames = 0;
+        overBudgetGcFrames = 0;
     }
 
     /**
      * Measures the time between two frames and updates the delta time.
+     * Only needed for timers you step yourself: while a game loop is running,
+     * it steps {@code Jester.timer} and calls to this method do nothing.
      */
     public void step() {
+        if (loopDriven) return;
+        advance();
+    }
+
+    /**
+     * Called by the game loop when it starts: resets the timer and takes over stepping it
+     */
+    void startLoop() {
+        loopDriven = true;
+        reset();
+    }
+
+    /**
+     * Steps the timer from the game loop, once per frame
+     */
+    void loopStep() {
+        advance();
+    }
+
+    private void advance() {
         long currentTime = System.nanoTime();
-        delta = (currentTime - lastFrameTime) / 1_000_000_000.0; // Convert to seconds
+        long elapsed = currentTime - lastFrameTime;
+        delta = elapsed / 1_000_000_000.0; // Convert to seconds
         lastFrameTime = currentTime;
 
         // Update average delta
@@ -30,10 +120,41 @@ public class JesterTimer {
         frameCount++;
 
         // Calculate average delta for the last second
-        if (System.nanoTime() - startTime >= 1_000_000_000) {
+        if (currentTime - startTime >= 1_000_000_000) {
             averageDelta = totalDelta / frameCount;
             totalDelta = 0;
             frameCount = 0;
+            startTime = currentTime;
+        }
+
+        record(elapsed);
+    }
+
+    /**
+     * Adds one frame to the histogram, the budget counts and the GC counts
+     * @param elapsed The frame time in nanoseconds
+     */
+    void record(long elapsed) {
+        // Histogram
+        long micros = elapsed / 1_000;
+        buckets[bucketOf(micros)]++;
+        histogramCount++;
+        if (micros > maxMicros) maxMicros = micros;
+
+        // Collections that ran during this frame
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        frameGcCount = gcCount - lastGcCount;
+        frameGcTime = gcTime - lastGcTime;
+        lastGcCount = gcCount;
+        lastGcTime = gcTime;
+        if (frameGcCount > 0) gcFrames++;
+
+        double seconds = elapsed / 1_000_000_000.0;
+        if (seconds > frameBudget) {
+            overBudgetFrames++;
+            if (frameGcCount > 0) overBudgetGcFrames++;
+            if (seconds > frameBudget * 2) hitchFrames++;
         }
     }
 
@@ -61,6 +182,113 @@ public class JesterTimer {
         return 1.0 / delta;
     }
 
+    /**
+     * Sets how long a frame may take before it counts as over budget
+     * @param seconds The frame budget in seconds (default 1/60)
+     */
+    public void setFrameBudget(double seconds) {
+        this.frameBudget = seconds;
+    }
+
+    public double getFrameBudget() { return frameBudget; }
+
+    /**
+     * Returns a percentile of the frame times since the last reset.
+     * The result is the upper edge of the histogram bucket, so it may be up to about 12% high.
+     * @param percentile the percentile (50 = median, 99 = all but the slowest 1%)
+     * @return frame time in seconds (0 if no frames were measured)
+     */
+    public double getPercentile(double percentile) {
+        if (histogramCount == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * histogramCount));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets[b];
+            if (seen >= rank) {
+                return Math.min(bucketEnd(b), maxMicros) / 1_000_000.0;
+            }
+        }
+        return maxMicros / 1_000_000.0;
+    }
+
+    /**
+     * Returns the longest frame since the last reset.
+     * @return frame time in seconds
+     */
+    public double getMaxDelta() {
+        return maxMicros / 1_000_000.0;
+    }
+
+    /**
+     * Returns how many frames were measured since the last reset.
+     * @return frame count
+     */
+    public long getFrameCount() {
+        return histogramCount;
+    }
+
+    /**
+     * Returns how many frames took longer than the frame budget.
+     * @return frame count
+     */
+    public long getOverBudgetFrames() {
+        return overBudgetFrames;
+    }
+
+    /**
+     * Returns how many frames took more than twice the frame budget,
+     * long enough to show as a visible stutter.
+     * @return frame count
+     */
+    public long getHitchFrames() {
+        return hitchFrames;
+    }
+
+    /**
+     * Returns how many frames had at least one garbage collection running.
+     * @return frame count
+     */
+    public long getGcFrames() {
+        return gcFrames;
+    }
+
+    /**
+     * Returns how many over budget frames had a garbage collection running.
+     * If this is close to {@link #getOverBudgetFrames()}, the hitches come from the GC.
+     * @return frame count
+     */
+    public long getOverBudgetGcFrames() {
+        return overBudgetGcFrames;
+    }
+
+    /**
+     * Returns how many garbage collections ran during the last frame.
+     * @return collection count
+     */
+    public long getLastFrameGcCount() {
+        return frameGcCount;
+    }
+
+    /**
+     * Returns how long garbage collections took during the last frame, as reported by the JVM.
+     * @return time in milliseconds
+     */
+    public long getLastFrameGcTime() {
+        return frameGcTime;
+    }
+
+    /**
+     * Returns a one-line summary of the frame times, for logging.
+     * @return the summary
+     */
+    public String getReport() {
+        return String.format("frames: %d | p50: %.2f ms | p99: %.2f ms | p99.9: %.2f ms | max: %.2f ms"
+                        + " | over budget: %d (%d with GC) | hitches: %d",
+                histogramCount, getPercentile(50) * 1000, getPercentile(99) * 1000,
+                getPercentile(99.9) * 1000, getMaxDelta() * 1000,
+                overBudgetFrames, overBudgetGcFrames, hitchFrames);
+    }
+
     /**
      * Returns the value of a timer with microsecond precision.
      * @return current time in microseconds
@@ -89,4 +317,37 @@ public class JesterTimer {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    // Buckets 0-7 are one microsecond wide; after that each doubling gets SUB_BUCKETS buckets
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) Math.max(0, micros);
+        int bit = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_BIT + 1);
+        if (bit > MAX_BIT) return BUCKETS - 1;
+        int sub = (int) (micros >>> (bit - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (bit - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // First microsecond value past the bucket
+    private static long bucketEnd(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket + 1;
+        int bit = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (bit - SUB_BITS);
+    }
+
+    private long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount()); // -1 when not supported
+        }
+        return count;
+    }
+
+    private long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+}
@@ -0,0 +1,183 @@
+package jester;
+
+import java.util.Arrays;
+
+/**
+ * A broadphase built on two dynamic AABB trees.
+ * STATIC and KINEMATIC colliders go into one tree and RIGID colliders into the other.
+ * Only RIGID colliders run queries, so pairs of two non-moving bodies (such as
+ * thousands of level platforms) are never enumerated at all.
+ * The physics world also sweeps bullets through the STATIC/KINEMATIC tree
+ * (see {@link #queryFixed}) and answers ray and area queries with both trees,
+ * whatever broadphase is selected.
+ *
+ * After a physics step every proxy is checked once; between steps only the colliders
+ * that game code added or moved (the store's dirty list) are refitted.
+ */
+class JesterTreeBroadphase implements JesterBroadphase, JesterAABBTree.QueryCallback {
+    private static final byte TREE_NONE = 0;
+    private static final byte TREE_FIXED = 1;   // STATIC and KINEMATIC
+    private static final byte TREE_RIGID = 2;
+
+    private static final float MARGIN = 4f;
+
+    private final JesterAABBTree fixedTree = new JesterAABBTree(MARGIN);
+    private final JesterAABBTree rigidTree = new JesterAABBTree(MARGIN);
+
+    // Proxy and tree of each collider (indexed like the collider store)
+    private int[] proxies = new int[64];
+    private byte[] trees = new byte[64];
+    private int syncedVersion = -1;
+
+    // State of the query currently running
+    private int queryIndex;
+    private boolean queryingRigid;
+    private JesterPairBuffer output;    // null while collecting for queryFixed
+    private int[] found = new int[16];
+    private int foundCount;
+
+    @Override
+    public void collectPairs(JesterColliderStore colliders, JesterPairBuffer pairs) {
+        update(colliders);
+
+        int count = colliders.size;
+        float[] x = colliders.x, y = colliders.y, w = colliders.width, h = colliders.height;
+        output = pairs;
+        for (int i = 0; i < count; i++) {
+            if (trees[i] != TREE_RIGID) continue;
+
+            float x0 = x[i];
+            float y0 = y[i];
+            float x1 = x0 + w[i];
+            float y1 = y0 + h[i];
+
+            queryIndex = i;
+            queryingRigid = false;
+            fixedTree.query(x0, y0, x1, y1, this);
+            queryingRigid = true;
+            rigidTree.query(x0, y0, x1, y1, this);
+        }
+        output = null;
+    }
+
+    /**
+     * Finds the STATIC and KINEMATIC colliders whose boxes touch a box.
+     * Call {@link #update} first in the same step.
+     * @return How many were found; their indices are in {@link #getFound()}
+     */
+    int queryFixed(float x0, float y0, float x1, float y1) {
+        foundCount = 0;
+        fixedTree.query(x0, y0, x1, y1, this);
+        return foundCount;
+    }
+
+    int[] getFound() {
+        return found;
+    }
+
+    /**
+     * Reports the colliders of both trees whose boxes touch a box.
+     * Call {@link #update} first.
+     * @return false if the callback stopped the query early
+     */
+    boolean query(float x0, float y0, float x1, float y1, JesterAABBTree.QueryCallback callback) {
+        return fixedTree.query(x0, y0, x1, y1, callback) && rigidTree.query(x0, y0, x1, y1, callback);
+    }
+
+    /**
+     * Reports the colliders of both trees whose boxes a segment crosses.
+     * Call {@link #update} first.
+     */
+    void raycast(float x1, float y1, float x2, float y2, JesterAABBTree.RaycastCallback callback) {
+        fixedTree.raycast(x1, y1, x2, y2, callback);
+        rigidTree.raycast(x1, y1, x2, y2, callback);
+    }
+
+    /**
+     * Brings the proxies up to date with the collider store: every proxy after a physics
+     * step, otherwise only the colliders in the store's dirty list
+     */
+    void update(JesterColliderStore colliders) {
+        int count = colliders.size;
+        ensureCapacity(count);
+
+        if (syncedVersion != colliders.version) {
+            for (int i = 0; i < count; i++) {
+                sync(colliders, i);
+            }
+            syncedVersion = colliders.version;
+        } else {
+            int[] dirty = colliders.dirty;
+            for (int k = 0; k < colliders.dirtyCount; k++) {
+                if (dirty[k] < count) sync(colliders, dirty[k]); // Skip colliders removed since
+            }
+        }
+        colliders.dirtyCount = 0;
+    }
+
+    // Moves a collider's proxy to its current box, and into the other tree if its body type changed
+    private void sync(JesterColliderStore colliders, int i) {
+        byte tree = (colliders.bodyType[i] == JesterColliderStore.BODY_RIGID) ? TREE_RIGID : TREE_FIXED;
+        float x0 = colliders.x[i];
+        float y0 = colliders.y[i];
+        float x1 = x0 + colliders.width[i];
+        float y1 = y0 + colliders.height[i];
+
+        if (trees[i] != tree) {
+            // New collider, or its body type changed
+            if (trees[i] != TREE_NONE) {
+                treeFor(trees[i]).destroyProxy(proxies[i]);
+            }
+            proxies[i] = treeFor(tree).createProxy(x0, y0, x1, y1, i);
+            trees[i] = tree;
+        } else {
+            treeFor(tree).moveProxy(proxies[i], x0, y0, x1, y1);
+        }
+    }
+
+    @Override
+    public boolean reportProxy(int proxy, int other) {
+        if (output == null) {
+            if (foundCount == found.length) found = Arrays.copyOf(found, foundCount * 2);
+            found[foundCount++] = other;
+        } else if (queryingRigid) {
+            // Both bodies query each other; only keep one of the two reports
+            if (other > queryIndex) {
+                output.add(queryIndex, other);
+            }
+        } else if (other < queryIndex) {
+            output.add(other, queryIndex);
+        } else {
+            output.add(queryIndex, other);
+        }
+        return true;
+    }
+
+    @Override
+    public void colliderRemoved(int index, int last) {
+        if (index < trees.length && trees[index] != TREE_NONE) {
+            treeFor(trees[index]).destroyProxy(proxies[index]);
+            trees[index] = TREE_NONE;
+        }
+        if (last == index || last >= trees.length) return;
+
+        // Follow the collider that moved into the gap
+        trees[index] = trees[last];
+        proxies[index] = proxies[last];
+        if (trees[index] != TREE_NONE) {
+            treeFor(trees[index]).setUserData(proxies[index], index);
+        }
+        trees[last] = TREE_NONE;
+    }
+
+    private JesterAABBTree treeFor(byte tree) {
+        return (tree == TREE_RIGID) ? rigidTree : fixedTree;
+    }
+
+    private void ensureCapacity(int count) {
+        if (proxies.length >= count) return;
+        int size = Math.max(count, proxies.length * 2);
+        proxies = Arrays.copyOf(proxies, size);
+        trees = Arrays.copyOf(trees, size);
+    }
+}
@@ -13,6 +13,10 @@ public class JesterWindow {
      */
     public static JFrame frame; // Make frame static
 
+    // Size reported when running without a window (see JesterHeadless)
+    private static int headlessWidth = 800;
+    private static int headlessHeight = 600;
+
     /**
      * Sets the internal JFrame reference used by the window.
      *
@@ -70,12 +74,21 @@ public class JesterWindow {
         return frame.getExtendedState() == JFrame.MAXIMIZED_BOTH && frame.isUndecorated();
     }
 
+    /**
+     * Sets the size reported by getWidth and getHeight when there is no window
+     */
+    static void setHeadlessSize(int width, int height) {
+        headlessWidth = width;
+        headlessHeight = height;
+    }
+
     /**
      * Returns the current width of the window.
      *
      * @return Width in pixels.
      */
     public int getWidth() {
+        if (frame == null) return headlessWidth;
         return frame.getWidth();
     }
 
@@ -85,6 +98,7 @@ public class JesterWindow {
      * @return Height in pixels.
      */
     public int getHeight() {
+        if (frame == null) return headlessHeight;
         return frame.getHeight();
     }
 
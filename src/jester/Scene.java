@@ -25,6 +25,17 @@ public abstract class Scene {
      */
     public abstract void render();
 
+    /**
+     * Called every frame to draw things on screen, with how far the game is between
+     * the last update and the next one. Override this instead of {@link #render()} to
+     * draw moving things smoothly when the game renders more often than it updates:
+     * draw at previous + (current - previous) * alpha.
+     * @param alpha The interpolation alpha (0 to 1)
+     */
+    public void render(float alpha) {
+        render();
+    }
+
     /**
      * Called when the scene is paused.
      * Override this method in subclasses to handle pause behavior.
@@ -1,9 +1,9 @@
 package jester;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -11,7 +11,7 @@ import java.util.function.Consumer;
  * It supports a publish-subscribe pattern for event handling.
  */
 public class SignalEmitter {
-    private final Map<String, Set<Consumer<Object>>> listeners = new HashMap<>();
+    private final Map<String, List<Consumer<Object>>> listeners = new HashMap<>();
 
     /**
      * Subscribes a callback to a specific signal.
@@ -19,7 +19,10 @@ public class SignalEmitter {
      * @param callback The callback to invoke when the signal is emitted.
      */
     public void on(String signalName, Consumer<Object> callback) {
-        listeners.computeIfAbsent(signalName, k -> new HashSet<>()).add(callback);
+        List<Consumer<Object>> callbacks = listeners.computeIfAbsent(signalName, k -> new ArrayList<>());
+        if (!callbacks.contains(callback)) {
+            callbacks.add(callback);
+        }
     }
 
     /**
@@ -40,10 +43,11 @@ public class SignalEmitter {
      * @param data The data to pass to the callbacks.
      */
     public void emit(String signalName, Object data) {
-        if (listeners.containsKey(signalName)) {
-            for (Consumer<Object> callback : listeners.get(signalName)) {
-                callback.accept(data);
-            }
+        List<Consumer<Object>> callbacks = listeners.get(signalName);
+        if (callbacks == null) return;
+        // Indexed loop: emitting happens every frame (contact signals) and must not allocate an iterator
+        for (int i = 0; i < callbacks.size(); i++) {
+            callbacks.get(i).accept(data);
         }
     }
 
@@ -0,0 +1,110 @@
+package jester;
+
+import static jester.JesterChecks.check;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Checks that {@link JesterTextureAtlas} packs regions without overlaps.
+ * Random images, each filled with its own color, are packed with several seeds, page
+ * sizes and paddings; every region must stay on its page, keep the padding to the
+ * others and show its own image.
+ */
+final class JesterAtlasCheck {
+    private static final int IMAGES = 300;
+
+    private JesterAtlasCheck() {}
+
+    public static void main(String[] args) {
+        for (int seed = 1; seed <= 5; seed++) {
+            for (int padding = 0; padding <= 2; padding++) {
+                run(seed, 256, 256, padding);
+                run(seed, 512, 128, padding);
+            }
+        }
+        checkDuplicateNames();
+        JesterChecks.passed();
+    }
+
+    private static void checkDuplicateNames() {
+        JesterTextureAtlas atlas = new JesterTextureAtlas(64, 64);
+        atlas.add("coin", filled(8, 8, 0xFFFFCC00));
+        try {
+            atlas.add("coin", filled(8, 8, 0xFF0000FF));
+            JesterChecks.fail("adding a name twice is refused");
+        } catch (IllegalArgumentException expected) {
+            // The first image keeps the name
+        }
+        atlas.pack();
+        check(atlas.getRegionCount() == 1, "a refused image gets no region");
+    }
+
+    private static void run(int seed, int pageWidth, int pageHeight, int padding) {
+        Random random = new Random(seed);
+        JesterTextureAtlas atlas = new JesterTextureAtlas(pageWidth, pageHeight);
+        atlas.setPadding(padding);
+
+        int[] colors = new int[IMAGES];
+        for (int i = 0; i < IMAGES; i++) {
+            // Mostly small sprites, with the odd tall, wide or page-sized one
+            int width = 1 + random.nextInt((i % 25 == 0) ? pageWidth : 48);
+            int height = 1 + random.nextInt((i % 30 == 0) ? pageHeight : 48);
+            colors[i] = 0xFF000000 | (i + 1) * 0x9E3779 & 0xFFFFFF;
+            atlas.add("image" + i, filled(width, height, colors[i]));
+        }
+        atlas.pack();
+        check(atlas.getRegionCount() == IMAGES, "every image gets a region");
+
+        String setup = "seed " + seed + ", " + pageWidth + "x" + pageHeight + " pages, padding " + padding;
+        JesterTextureRegion[] regions = new JesterTextureRegion[IMAGES];
+        for (int i = 0; i < IMAGES; i++) {
+            JesterTextureRegion region = atlas.getRegion("image" + i);
+            BufferedImage page = (BufferedImage) region.getPage();
+            check(region.getX() >= 0 && region.getY() >= 0
+                            && region.getX() + region.getWidth() <= page.getWidth()
+                            && region.getY() + region.getHeight() <= page.getHeight(),
+                    "image" + i + " stays on its page (" + setup + ")");
+            regions[i] = region;
+        }
+
+        for (int i = 0; i < IMAGES; i++) {
+            for (int j = i + 1; j < IMAGES; j++) {
+                check(!overlap(regions[i], regions[j], padding),
+                        "image" + i + " and image" + j + " don't overlap (" + setup + ")");
+            }
+        }
+
+        // Each region holds a copy of its own image
+        for (int i = 0; i < IMAGES; i++) {
+            JesterTextureRegion region = regions[i];
+            BufferedImage page = (BufferedImage) region.getPage();
+            for (int y = region.getY(); y < region.getY() + region.getHeight(); y++) {
+                for (int x = region.getX(); x < region.getX() + region.getWidth(); x++) {
+                    if (page.getRGB(x, y) != colors[i]) {
+                        JesterChecks.fail("image" + i + " is copied to its region (" + setup + ")");
+                    }
+                }
+            }
+        }
+    }
+
+    // Regions on the same page that come closer than the padding (a region's padding
+    // is on its right and bottom, except where the page ends)
+    private static boolean overlap(JesterTextureRegion a, JesterTextureRegion b, int padding) {
+        if (a.getPage() != b.getPage()) return false;
+        return a.getX() < b.getX() + b.getWidth() + padding && b.getX() < a.getX() + a.getWidth() + padding
+                && a.getY() < b.getY() + b.getHeight() + padding && b.getY() < a.getY() + a.getHeight() + padding;
+    }
+
+    private static BufferedImage filled(int width, int height, int argb) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(argb, true));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,32 @@
+package jester;
+
+/**
+ * Shared helpers for the self-check tools (see tools/README.md)
+ */
+final class JesterChecks {
+    private JesterChecks() {}
+
+    /**
+     * Stops the check with an exception if a condition doesn't hold
+     * @param condition What must be true
+     * @param what A description of what was checked, used in the failure message
+     */
+    static void check(boolean condition, String what) {
+        if (!condition) fail(what);
+    }
+
+    /**
+     * Stops the check with an exception
+     * @param what A description of what was checked
+     */
+    static void fail(String what) {
+        throw new IllegalStateException("Check failed: " + what);
+    }
+
+    /**
+     * Reports that every check of a tool passed
+     */
+    static void passed() {
+        System.out.println("ok");
+    }
+}
@@ -0,0 +1,57 @@
+package jester;
+
+import static jester.JesterChecks.check;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Checks that collider handles go stale when their collider is removed: old handles
+ * must find nothing once new colliders reuse the freed slots.
+ */
+final class JesterHandleCheck {
+    private JesterHandleCheck() {}
+
+    public static void main(String[] args) {
+        JesterPhysics world = new JesterPhysics(0);
+
+        JesterCollider first = world.newRectangleCollider(0, 0, 10, 10);
+        JesterCollider second = world.newRectangleCollider(50, 0, 10, 10);
+        int firstHandle = first.getHandle();
+        int secondHandle = second.getHandle();
+
+        check(world.removeCollider(first), "removing a collider returns true");
+        check(first.isRemoved(), "a removed collider knows it was removed");
+        check(world.getCollider(firstHandle) == null, "a removed handle finds nothing");
+        check(world.getCollider(secondHandle) == second, "the other collider keeps its handle");
+
+        // The next collider takes the freed slot with a new generation
+        JesterCollider reused = world.newRectangleCollider(100, 0, 10, 10);
+        int reusedHandle = reused.getHandle();
+        check(JesterColliderStore.slotOf(reusedHandle) == JesterColliderStore.slotOf(firstHandle),
+                "the new collider reuses the freed slot");
+        check(reusedHandle != firstHandle, "the reused slot gets a new handle");
+        check(world.getCollider(firstHandle) == null, "a stale handle stays null after its slot is reused");
+        check(!world.removeCollider(firstHandle), "removing by a stale handle does nothing");
+        check(world.getCollider(reusedHandle) == reused, "the new handle finds the new collider");
+        check(world.getColliderCount() == 2, "the world holds two colliders");
+
+        // Reuse the same slot past its last generation; every older handle must stay stale
+        int[] old = new int[3000];
+        for (int i = 0; i < old.length; i++) {
+            old[i] = reused.getHandle();
+            world.removeCollider(reused);
+            reused = world.newRectangleCollider(100, 0, 10, 10);
+        }
+        Set<Integer> seen = new HashSet<>();
+        for (int handle : old) {
+            check(world.getCollider(handle) == null, "every earlier handle of a slot stays null");
+            check(seen.add(handle), "a handle is never given out twice");
+        }
+        check(!seen.contains(reused.getHandle()), "the newest handle is new too");
+        check(world.getCollider(reused.getHandle()) == reused, "the newest handle still works");
+        check(world.getCollider(secondHandle) == second, "the untouched collider still works");
+
+        JesterChecks.passed();
+    }
+}
@@ -0,0 +1,76 @@
+package jester;
+
+import static jester.JesterChecks.check;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that the parallel narrowphase gives bit-identical results to the sequential one.
+ * A crowded pile of boxes and circles runs once on one thread and once on a pool, with
+ * every broadphase and solver, and the state hashes must match after every step.
+ */
+final class JesterParallelCheck {
+    private static final int BODIES = 400;
+    private static final int STEPS = 300;
+
+    private JesterParallelCheck() {}
+
+    public static void main(String[] args) {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (JesterPhysics.Solver solver : JesterPhysics.Solver.values()) {
+                for (JesterPhysics.Broadphase broadphase : JesterPhysics.Broadphase.values()) {
+                    for (boolean sleeping : new boolean[] { false, true }) {
+                        long[] sequential = run(broadphase, solver, sleeping, null);
+                        long[] parallel = run(broadphase, solver, sleeping, pool);
+                        for (int step = 0; step < STEPS; step++) {
+                            check(sequential[step] == parallel[step], solver + " with " + broadphase
+                                    + (sleeping ? " and sleeping" : "") + " matches on step " + step);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        JesterChecks.passed();
+    }
+
+    // Returns the state hash after every step
+    private static long[] run(JesterPhysics.Broadphase broadphase, JesterPhysics.Solver solver,
+                              boolean sleeping, ForkJoinPool pool) {
+        JesterPhysics world = new JesterPhysics(400);
+        world.setBroadphase(broadphase);
+        world.setSolver(solver);
+        world.setSleepingEnabled(sleeping);
+        world.setParallel(pool);
+
+        // A box with open top, filled with overlapping bodies
+        newWall(world, 0, 600, 800, 20);
+        newWall(world, 0, 0, 20, 620);
+        newWall(world, 780, 0, 20, 620);
+
+        Random random = new Random(7);
+        for (int i = 0; i < BODIES; i++) {
+            float x = 30 + random.nextFloat() * 740;
+            float y = random.nextFloat() * 580;
+            if (i % 3 == 0) {
+                world.newCircleCollider(x, y, 6 + random.nextFloat() * 6);
+            } else {
+                world.newRectangleCollider(x, y, 10 + random.nextFloat() * 10, 10 + random.nextFloat() * 10);
+            }
+        }
+
+        long[] hashes = new long[STEPS];
+        for (int step = 0; step < STEPS; step++) {
+            world.stepFixed();
+            hashes[step] = world.computeStateHash();
+        }
+        return hashes;
+    }
+
+    private static void newWall(JesterPhysics world, float x, float y, float width, float height) {
+        world.newRectangleCollider(x, y, width, height).setBodyType(JesterCollider.BodyType.STATIC);
+    }
+}
@@ -0,0 +1,71 @@
+package jester;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the broadphases on the same random world.
+ * Every broadphase gets an identical world of small moving and static boxes, runs a few
+ * warm-up steps, then reports the pair tests and the time per step.
+ * Arguments: [colliders] [steps]
+ */
+final class JesterPhysicsBenchmark {
+    private static final float WORLD_SIZE = 4000f;
+    private static final int WARMUP_STEPS = 30;
+
+    private JesterPhysicsBenchmark() {}
+
+    public static void main(String[] args) {
+        int colliders = (args.length > 0) ? Integer.parseInt(args[0]) : 3000;
+        int steps = (args.length > 1) ? Integer.parseInt(args[1]) : 120;
+
+        System.out.printf("%d colliders, %d steps%n", colliders, steps);
+        System.out.printf("%-16s %14s %12s %12s%n", "broadphase", "pair tests", "median ms", "max ms");
+        for (JesterPhysics.Broadphase broadphase : JesterPhysics.Broadphase.values()) {
+            run(broadphase, colliders, steps);
+        }
+    }
+
+    private static void run(JesterPhysics.Broadphase broadphase, int colliders, int steps) {
+        JesterPhysics world = createWorld(colliders);
+        world.setBroadphase(broadphase);
+
+        for (int s = 0; s < WARMUP_STEPS; s++) {
+            world.update(1f / 60f);
+        }
+
+        long pairTests = 0;
+        long[] times = new long[steps];
+        for (int s = 0; s < steps; s++) {
+            world.update(1f / 60f);
+            pairTests += world.getPairTestCount();
+            times[s] = world.getLastStepNanos();
+        }
+        Arrays.sort(times);
+
+        System.out.printf("%-16s %14d %12.3f %12.3f%n", broadphase,
+                pairTests / steps, times[steps / 2] / 1_000_000.0, times[steps - 1] / 1_000_000.0);
+    }
+
+    // The same seed gives every broadphase the same world
+    private static JesterPhysics createWorld(int colliders) {
+        JesterPhysics world = new JesterPhysics(0);
+        world.setStepRate(0);
+        world.setSleepingEnabled(false);
+        world.setCellSize(32);
+
+        Random random = new Random(42);
+        for (int i = 0; i < colliders; i++) {
+            float size = 4 + random.nextFloat() * 12;
+            JesterCollider collider = world.newRectangleCollider(
+                    random.nextFloat() * WORLD_SIZE, random.nextFloat() * WORLD_SIZE, size, size);
+            if (i % 5 == 0) {
+                collider.setBodyType(JesterCollider.BodyType.STATIC);
+            } else {
+                collider.setVelocityX(random.nextFloat() * 100 - 50);
+                collider.setVelocityY(random.nextFloat() * 100 - 50);
+            }
+        }
+        return world;
+    }
+}
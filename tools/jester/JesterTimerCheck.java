@@ -0,0 +1,75 @@
+package jester;
+
+import static jester.JesterChecks.check;
+
+/**
+ * Checks the frame-time histogram of {@link JesterTimer} against known frame times:
+ * percentiles must land within the histogram's precision (never low, at most one
+ * bucket high) and the budget counts must be exact.
+ */
+final class JesterTimerCheck {
+    private static final double PRECISION = 1.125; // Buckets are at most 1/8 of their start wide
+
+    private JesterTimerCheck() {}
+
+    public static void main(String[] args) {
+        JesterTimer timer = new JesterTimer();
+
+        // Frames of 1 to 1000 microseconds
+        for (int micros = 1; micros <= 1000; micros++) {
+            timer.record(micros * 1_000L);
+        }
+        check(timer.getFrameCount() == 1000, "every recorded frame is counted");
+        checkPercentile(timer, 50, 500);
+        checkPercentile(timer, 90, 900);
+        checkPercentile(timer, 99, 990);
+        check(timer.getPercentile(100) == 0.001, "the 100th percentile is the longest frame");
+        check(timer.getMaxDelta() == 0.001, "the longest frame is kept exactly");
+
+        // Below 8 microseconds buckets are one microsecond wide: the median 4 reads as its end, 5
+        timer.reset();
+        for (int micros = 1; micros <= 7; micros++) {
+            timer.record(micros * 1_000L);
+        }
+        check(timer.getPercentile(50) == 0.000005, "short frames land in one-microsecond buckets");
+
+        // Every frame the same length: all percentiles are that length
+        timer.reset();
+        for (int i = 0; i < 1000; i++) {
+            timer.record(16_667_000L);
+        }
+        check(timer.getPercentile(1) == 0.016667, "equal frames give equal low percentiles");
+        check(timer.getPercentile(99.9) == 0.016667, "equal frames give equal high percentiles");
+
+        // 90 frames on budget, 9 over budget, 1 hitch
+        timer.reset();
+        timer.setFrameBudget(1.0 / 60.0);
+        for (int i = 0; i < 90; i++) timer.record(10_000_000L);
+        for (int i = 0; i < 9; i++) timer.record(20_000_000L);
+        timer.record(40_000_000L);
+        check(timer.getOverBudgetFrames() == 10, "frames over the budget are counted");
+        check(timer.getHitchFrames() == 1, "frames over twice the budget are counted as hitches");
+        checkPercentile(timer, 90, 10_000);
+        checkPercentile(timer, 99, 20_000);
+        check(timer.getPercentile(100) == 0.04, "the slowest frame is the 100th percentile");
+
+        // A single short frame next to a long one: its bucket must hold it, for any length
+        for (long micros = 0; micros < (1L << 31); micros = (micros < 20_000) ? micros + 1 : micros + micros / 7) {
+            timer.reset();
+            timer.record(micros * 1_000L);
+            timer.record(Long.MAX_VALUE / 2);
+            double upper = timer.getPercentile(50) * 1_000_000.0;
+            check(upper > micros - 0.001 && upper <= Math.max(micros * PRECISION, micros + 1) + 0.001,
+                    micros + " microseconds falls in a bucket that ends at " + upper);
+        }
+
+        JesterChecks.passed();
+    }
+
+    // The percentile is the end of the bucket holding the expected frame: not lower, at most 12.5% higher
+    private static void checkPercentile(JesterTimer timer, double percentile, long expectedMicros) {
+        double micros = timer.getPercentile(percentile) * 1_000_000.0;
+        check(micros >= expectedMicros - 0.001 && micros <= expectedMicros * PRECISION + 0.001,
+                "p" + percentile + " is " + micros + " microseconds, expected about " + expectedMicros);
+    }
+}